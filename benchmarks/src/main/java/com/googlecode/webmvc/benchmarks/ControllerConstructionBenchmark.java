@@ -0,0 +1,228 @@
+package com.googlecode.webmvc.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.BindException;
+import org.springframework.validation.Errors;
+import org.springframework.web.servlet.ModelAndView;
+
+import com.googlecode.webmvc.validation.AbstractGenericValidator;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractCommandController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractFormController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractWizardFormController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.BaseCommandController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.SimpleFormController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.SimpleFormControllerEx;
+import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
+
+/**
+ * <p>
+ *  Measures the cost of constructing each of the generic base
+ *  classes, which is what every prototype scoped controller or
+ *  validator pays per request.  The <code>cold</code> variant
+ *  clears the {@link GenericsUtil} cache first to show the cost
+ *  of the first instance of every class.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerConstructionBenchmark {
+
+    /**
+     * Empties the caches before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        /**
+         * Clears the caches.
+         */
+        @Setup(Level.Invocation)
+        public void clear() {
+            GenericsUtil.clearCache();
+        }
+    }
+
+    /**
+     * @return a new controller
+     */
+    @Benchmark
+    public Object baseCommandController() {
+        return new BaseCommand();
+    }
+
+    /**
+     * @return a new controller
+     */
+    @Benchmark
+    public Object abstractCommandController() {
+        return new Command();
+    }
+
+    /**
+     * @return a new controller
+     */
+    @Benchmark
+    public Object abstractUrlCommandController() {
+        return new UrlCommand();
+    }
+
+    /**
+     * @return a new controller
+     */
+    @Benchmark
+    public Object abstractFormController() {
+        return new Form();
+    }
+
+    /**
+     * @return a new controller
+     */
+    @Benchmark
+    public Object simpleFormController() {
+        return new SimpleForm();
+    }
+
+    /**
+     * @return a new controller
+     */
+    @Benchmark
+    public Object simpleFormControllerEx() {
+        return new SimpleFormEx();
+    }
+
+    /**
+     * @return a new controller
+     */
+    @Benchmark
+    public Object abstractWizardFormController() {
+        return new WizardForm();
+    }
+
+    /**
+     * @return a new validator
+     */
+    @Benchmark
+    public Object abstractGenericValidator() {
+        return new Validator();
+    }
+
+    /**
+     * @param cache clears the cache
+     * @return a new controller
+     */
+    @Benchmark
+    public Object simpleFormControllerCold(ColdCache cache) {
+        return new SimpleForm();
+    }
+
+    /**
+     * @param cache clears the cache
+     * @return a new controller
+     */
+    @Benchmark
+    public Object abstractUrlCommandControllerCold(ColdCache cache) {
+        return new UrlCommand();
+    }
+
+    /**
+     * The command.
+     */
+    public static class Person {
+        private Long id;
+
+        /**
+         * @return the id
+         */
+        public Long getId() {
+            return id;
+        }
+
+        /**
+         * @param id the id to set
+         */
+        public void setId(Long id) {
+            this.id = id;
+        }
+    }
+
+    public static class BaseCommand extends BaseCommandController<Person> {
+        @Override
+        protected ModelAndView handleRequestInternal(
+            HttpServletRequest request, HttpServletResponse response) {
+            return null;
+        }
+    }
+
+    public static class Command extends AbstractCommandController<Person> {
+        @Override
+        protected ModelAndView handle(
+            Person command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response, Map<String, Object> model) {
+            return null;
+        }
+    }
+
+    public static class UrlCommand extends AbstractUrlCommandController<Person> {
+        @Override
+        protected ModelAndView handle(
+            Person command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response, Map<String, Object> model) {
+            return null;
+        }
+    }
+
+    public static class Form extends AbstractFormController<Person> {
+        @Override
+        protected ModelAndView processFormSubmission(
+            Person command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response) {
+            return null;
+        }
+
+        @Override
+        protected ModelAndView showForm(
+            HttpServletRequest request, HttpServletResponse response,
+            BindException errors, Person command) {
+            return null;
+        }
+    }
+
+    public static class SimpleForm extends SimpleFormController<Person> { }
+
+    public static class SimpleFormEx extends SimpleFormControllerEx<Person> { }
+
+    public static class WizardForm extends AbstractWizardFormController<Person> {
+        @Override
+        protected ModelAndView processFinish(
+            Person command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response) {
+            return null;
+        }
+    }
+
+    public static class Validator extends AbstractGenericValidator<Person> {
+        @Override
+        protected void doValidate(Person target, Errors errors) { }
+    }
+
+}
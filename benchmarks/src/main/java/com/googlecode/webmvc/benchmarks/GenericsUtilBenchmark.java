@@ -0,0 +1,127 @@
+package com.googlecode.webmvc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
+
+/**
+ * <p>
+ *  Measures {@link GenericsUtil#getTypeVariableClassByName(Class, java.lang.reflect.Type, String, Boolean)}
+ *  for shallow and deep hierarchies, with the type variable bound
+ *  through a superclass or through an interface, both with a warm
+ *  cache (the steady state) and a cold one (the first lookup of
+ *  every class).
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenericsUtilBenchmark {
+
+    /**
+     * The hierarchy being resolved.
+     */
+    @State(Scope.Benchmark)
+    public static class Hierarchy {
+
+        @Param({ "shallowClass", "deepClass", "shallowInterface", "deepInterface" })
+        private String shape;
+
+        private Class<?> clazz;
+        private Class<?> genericClazz;
+
+        /**
+         * Picks the classes for the shape.
+         */
+        @Setup
+        public void setUp() {
+            if ("shallowClass".equals(shape)) {
+                clazz = ShallowClass.class;
+                genericClazz = Class0.class;
+            } else if ("deepClass".equals(shape)) {
+                clazz = DeepClass.class;
+                genericClazz = Class0.class;
+            } else if ("shallowInterface".equals(shape)) {
+                clazz = ShallowInterface.class;
+                genericClazz = Interface0.class;
+            } else {
+                clazz = DeepInterface.class;
+                genericClazz = Interface0.class;
+            }
+        }
+    }
+
+    /**
+     * Empties the caches before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        /**
+         * Clears the caches.
+         */
+        @Setup(Level.Invocation)
+        public void clear() {
+            GenericsUtil.clearCache();
+        }
+    }
+
+    /**
+     * Lookup with a warm cache.
+     * @param hierarchy the hierarchy
+     * @return the resolved class
+     */
+    @Benchmark
+    public Class<?> warm(Hierarchy hierarchy) {
+        return GenericsUtil.getTypeVariableClassByName(
+            hierarchy.clazz, hierarchy.genericClazz, "T", true);
+    }
+
+    /**
+     * Lookup with a cold cache.
+     * @param hierarchy the hierarchy
+     * @param cache clears the cache
+     * @return the resolved class
+     */
+    @Benchmark
+    public Class<?> cold(Hierarchy hierarchy, ColdCache cache) {
+        return GenericsUtil.getTypeVariableClassByName(
+            hierarchy.clazz, hierarchy.genericClazz, "T", true);
+    }
+
+    // class bound hierarchies
+
+    public abstract static class Class0<T> { }
+    public abstract static class Class1<T> extends Class0<T> { }
+    public abstract static class Class2<T> extends Class1<T> { }
+    public abstract static class Class3<T> extends Class2<T> { }
+    public abstract static class Class4<T> extends Class3<T> { }
+    public static class ShallowClass extends Class0<Long> { }
+    public static class DeepClass extends Class4<Long> { }
+
+    // interface bound hierarchies
+
+    public interface Interface0<T> { }
+    public interface Interface1<T> extends Interface0<T> { }
+    public interface Interface2<T> extends Interface1<T> { }
+    public interface Interface3<T> extends Interface2<T> { }
+    public interface Interface4<T> extends Interface3<T> { }
+    public static class ShallowInterface implements Interface0<Long> { }
+    public static class DeepInterface implements Interface4<Long> { }
+
+}
@@ -0,0 +1,220 @@
+package com.googlecode.webmvc.apt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * <p>
+ *  Annotation processor that records, at compile time, the command
+ *  class of every concrete controller extending one of the generic
+ *  controllers and the target class of every concrete
+ *  <code>AbstractGenericValidator</code>.  The bindings are written
+ *  to <code>META-INF/spring-webmvc-generics.bindings</code>, merged
+ *  with those of an earlier build for the classes that weren't
+ *  compiled again, where <code>GenericsUtil</code> checks them
+ *  against reflection.  Type arguments that are type variables or
+ *  wildcards aren't recorded.
+ * </p>
+ *
+ * <p>
+ *  No annotations are needed, every class being compiled is
+ *  inspected.  To use it put this module on the compiler's
+ *  processor path:
+ *  <pre>
+ *      &lt;dependency&gt;
+ *          &lt;groupId&gt;com.googlecode&lt;/groupId&gt;
+ *          &lt;artifactId&gt;spring-webmvc-generics-apt&lt;/artifactId&gt;
+ *          &lt;version&gt;0.2-SNAPSHOT&lt;/version&gt;
+ *          &lt;scope&gt;provided&lt;/scope&gt;
+ *      &lt;/dependency&gt;
+ *  </pre>
+ * </p>
+ */
+@SupportedAnnotationTypes("*")
+public class TypeBindingProcessor
+    extends AbstractProcessor {
+
+    /**
+     * Must match <code>GeneratedTypeBindings.BINDINGS_RESOURCE</code>.
+     */
+    static final String BINDINGS_RESOURCE = "META-INF/spring-webmvc-generics.bindings";
+
+    private static final Set<String> GENERIC_TYPES = new HashSet<String>(Arrays.asList(
+        "com.googlecode.webmvc.validation.AbstractGenericValidator",
+        "com.googlecode.webmvc.web.servlet.generics.mvc.AbstractCommandController",
+        "com.googlecode.webmvc.web.servlet.generics.mvc.AbstractFormController",
+        "com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController",
+        "com.googlecode.webmvc.web.servlet.generics.mvc.AbstractWizardFormController",
+        "com.googlecode.webmvc.web.servlet.generics.mvc.BaseCommandController",
+        "com.googlecode.webmvc.web.servlet.generics.mvc.SimpleFormController",
+        "com.googlecode.webmvc.web.servlet.generics.mvc.SimpleFormControllerEx"));
+
+    private final Set<String> bindings = new TreeSet<String>();
+    private final Set<String> compiledClasses = new HashSet<String>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeBindings();
+        } else {
+            for (Element element : roundEnv.getRootElements()) {
+                collectBindings(element);
+            }
+        }
+
+        // never claim anything
+        return false;
+    }
+
+    /**
+     * Collects the bindings of the given element and
+     * of any types nested within it.
+     * @param element the element
+     */
+    private void collectBindings(Element element) {
+        if (element.getKind()==ElementKind.CLASS
+            && !element.getModifiers().contains(Modifier.ABSTRACT)) {
+            collectBindings((TypeElement)element);
+        }
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed.getKind().isClass() || enclosed.getKind().isInterface()) {
+                collectBindings(enclosed);
+            }
+        }
+    }
+
+    /**
+     * Walks the supertypes of the given class recording the
+     * type arguments given to any of the generic types.
+     * @param type the class
+     */
+    private void collectBindings(TypeElement type) {
+        String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        compiledClasses.add(className);
+        LinkedList<TypeMirror> supertypes = new LinkedList<TypeMirror>(
+            processingEnv.getTypeUtils().directSupertypes(type.asType()));
+        while (!supertypes.isEmpty()) {
+            TypeMirror supertype = supertypes.removeFirst();
+            if (supertype.getKind()!=TypeKind.DECLARED) {
+                continue;
+            }
+
+            // the supertypes already have the type arguments substituted
+            DeclaredType declared = (DeclaredType)supertype;
+            TypeElement element = (TypeElement)declared.asElement();
+            String declaration = element.getQualifiedName().toString();
+            if (GENERIC_TYPES.contains(declaration)) {
+                List<? extends TypeParameterElement> vars = element.getTypeParameters();
+                List<? extends TypeMirror> args = declared.getTypeArguments();
+                for (int i=0; i<vars.size() && i<args.size(); i++) {
+
+                    // variables and wildcards aren't bound to a class, reflection resolves them to null
+                    TypeKind kind = args.get(i).getKind();
+                    if (kind==TypeKind.TYPEVAR || kind==TypeKind.WILDCARD) {
+                        continue;
+                    }
+                    TypeMirror arg = processingEnv.getTypeUtils().erasure(args.get(i));
+                    if (arg.getKind()==TypeKind.DECLARED) {
+                        bindings.add(className+" "+declaration+" "+vars.get(i).getSimpleName()+" "
+                            +processingEnv.getElementUtils().getBinaryName(
+                                (TypeElement)((DeclaredType)arg).asElement()));
+                    }
+                }
+            }
+            supertypes.addAll(processingEnv.getTypeUtils().directSupertypes(supertype));
+        }
+    }
+
+    /**
+     * Writes the collected bindings, merged with those of the classes
+     * that weren't compiled this time (ie: by an incremental build)
+     * and still exist, if there are any.
+     */
+    private void writeBindings() {
+        readPreviousBindings();
+        if (bindings.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(
+                StandardLocation.CLASS_OUTPUT, "", BINDINGS_RESOURCE);
+            Writer writer = new OutputStreamWriter(file.openOutputStream(), "UTF-8");
+            try {
+                for (String binding : bindings) {
+                    writer.write(binding);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ioe) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "Unable to write "+BINDINGS_RESOURCE+": "+ioe.getMessage());
+        }
+    }
+
+    /**
+     * Adds the bindings of the previous build, if there was one, that
+     * belong to classes which weren't compiled this time.  Bindings of
+     * classes that no longer exist are dropped.
+     */
+    private void readPreviousBindings() {
+        try {
+            FileObject file = processingEnv.getFiler().getResource(
+                StandardLocation.CLASS_OUTPUT, "", BINDINGS_RESOURCE);
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.openInputStream(), "UTF-8"));
+            try {
+                for (String line = reader.readLine(); line!=null; line = reader.readLine()) {
+                    String[] parts = line.trim().split(" ");
+                    if (parts.length==4 && !parts[0].startsWith("#")
+                        && !compiledClasses.contains(parts[0])
+                        && processingEnv.getElementUtils().getTypeElement(parts[0].replace('$', '.'))!=null) {
+                        bindings.add(line.trim());
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ioe) {
+            // there's no previous build
+        }
+    }
+
+}
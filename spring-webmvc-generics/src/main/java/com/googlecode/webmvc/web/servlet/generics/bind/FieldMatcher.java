@@ -0,0 +1,242 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.ServletRequest;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * <p>
+ *  A precompiled set of allowed and disallowed field patterns,
+ *  using the same syntax as
+ *  {@link org.springframework.validation.DataBinder#setAllowedFields(String[])}
+ *  (ie: <code>name</code>, <code>address.*</code>,
+ *  <code>*Id</code>).  Rather than matching every field against
+ *  every pattern the patterns are compiled once into a set of
+ *  exact names and tries of prefixes and suffixes, so checking a
+ *  field takes time proportional to its length.  Patterns with
+ *  wildcards anywhere else are matched the usual way.
+ * </p>
+ *
+ * <p>
+ *  Instances are immutable and thread safe.
+ * </p>
+ */
+public final class FieldMatcher {
+
+    private final Patterns allowed;
+    private final Patterns disallowed;
+
+    /**
+     * Creates the FieldMatcher.
+     * @param allowedFields the allowed field patterns
+     * @param disallowedFields the disallowed field patterns
+     */
+    private FieldMatcher(String[] allowedFields, String[] disallowedFields) {
+        this.allowed = (allowedFields!=null && allowedFields.length>0)
+            ? new Patterns(allowedFields) : null;
+        this.disallowed = (disallowedFields!=null && disallowedFields.length>0)
+            ? new Patterns(disallowedFields) : null;
+    }
+
+    /**
+     * Compiles the given patterns.
+     * @param allowedFields the allowed field patterns, or
+     * null to allow all fields
+     * @param disallowedFields the disallowed field patterns,
+     * or null for none
+     * @return the matcher
+     */
+    public static FieldMatcher compile(String[] allowedFields, String[] disallowedFields) {
+        return new FieldMatcher(allowedFields, disallowedFields);
+    }
+
+    /**
+     * Checks whether or not the given field is allowed, ie: it
+     * matches an allowed pattern (if there are any) and doesn't
+     * match a disallowed pattern.
+     * @param field the field
+     * @return true if it is allowed
+     */
+    public boolean isAllowed(String field) {
+        return (allowed==null || allowed.matches(field))
+            && (disallowed==null || !disallowed.matches(field));
+    }
+
+    /**
+     * Collects the allowed parameters of the given request, in a
+     * single pass and without collecting the others, the same way
+     * {@link org.springframework.web.bind.ServletRequestParameterPropertyValues}
+     * would: parameters with a single value are bound as a String
+     * and those with several as a String[].  Field markers (see
+     * {@link org.springframework.web.bind.WebDataBinder#setFieldMarkerPrefix(String)})
+     * are allowed when their field is.
+     * @param request the request
+     * @param fieldMarkerPrefix the field marker prefix, or null
+     * @return the property values
+     */
+    @SuppressWarnings("unchecked")
+    public MutablePropertyValues getPropertyValues(ServletRequest request, String fieldMarkerPrefix) {
+        MutablePropertyValues mpvs = new MutablePropertyValues();
+        for (Enumeration<String> names = request.getParameterNames(); names.hasMoreElements();) {
+            String name = names.nextElement();
+            String field = (fieldMarkerPrefix!=null && name.startsWith(fieldMarkerPrefix))
+                ? name.substring(fieldMarkerPrefix.length()) : name;
+            if (!isAllowed(field)) {
+                continue;
+            }
+            String[] values = request.getParameterValues(name);
+            if (values!=null && values.length>0) {
+                mpvs.addPropertyValue(new PropertyValue(name, (values.length>1) ? values : values[0]));
+            }
+        }
+        return mpvs;
+    }
+
+    /**
+     * A compiled set of patterns.
+     */
+    private static final class Patterns {
+
+        private final boolean all;
+        private final Set<String> exact = new HashSet<String>();
+        private final Trie prefixes = new Trie();
+        private final Trie suffixes = new Trie();
+        private final String[] others;
+
+        /**
+         * Compiles the patterns.
+         * @param patterns the patterns
+         */
+        Patterns(String[] patterns) {
+            boolean matchesAll = false;
+            List<String> otherPatterns = new ArrayList<String>();
+            for (String pattern : patterns) {
+                int first = pattern.indexOf('*');
+                int last = pattern.lastIndexOf('*');
+                if (first==-1) {
+                    exact.add(pattern);
+                } else if (pattern.length()==1 || pattern.equals("**")) {
+                    matchesAll = true;
+                } else if (first==last && last==pattern.length()-1) {
+                    prefixes.add(pattern, 0, pattern.length()-1, false);
+                } else if (first==last && first==0) {
+                    suffixes.add(pattern, 1, pattern.length(), true);
+                } else {
+                    otherPatterns.add(pattern);
+                }
+            }
+            this.all = matchesAll;
+            this.others = otherPatterns.toArray(new String[otherPatterns.size()]);
+        }
+
+        /**
+         * Checks whether or not the given field matches.
+         * @param field the field
+         * @return true if it does
+         */
+        boolean matches(String field) {
+            if (all || exact.contains(field)
+                || prefixes.matches(field, false)
+                || suffixes.matches(field, true)) {
+                return true;
+            }
+            for (String other : others) {
+                if (PatternMatchUtils.simpleMatch(other, field)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A trie of prefixes (or of suffixes, read backwards).
+     */
+    private static final class Trie {
+
+        private char[] keys = new char[0];
+        private Trie[] children = new Trie[0];
+        private boolean terminal;
+
+        /**
+         * Adds the given part of a string.
+         * @param value the string
+         * @param start the start index
+         * @param end the end index
+         * @param backwards whether to add it backwards
+         */
+        void add(String value, int start, int end, boolean backwards) {
+            Trie node = this;
+            for (int i=0; i<end-start; i++) {
+                node = node.child(value.charAt(backwards ? end-1-i : start+i));
+            }
+            node.terminal = true;
+        }
+
+        /**
+         * Checks whether or not the given string starts (or
+         * ends, backwards) with anything in the trie.
+         * @param value the string
+         * @param backwards whether to read it backwards
+         * @return true if it does
+         */
+        boolean matches(String value, boolean backwards) {
+            Trie node = this;
+            int length = value.length();
+            for (int i=0; node!=null; i++) {
+                if (node.terminal) {
+                    return true;
+                } else if (i==length) {
+                    return false;
+                }
+                node = node.find(value.charAt(backwards ? length-1-i : i));
+            }
+            return false;
+        }
+
+        /**
+         * Finds the child for the given character.
+         * @param c the character
+         * @return the child or null
+         */
+        private Trie find(char c) {
+            for (int i=0; i<keys.length; i++) {
+                if (keys[i]==c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the child for the given character,
+         * creating it if it doesn't exist.
+         * @param c the character
+         * @return the child
+         */
+        private Trie child(char c) {
+            Trie child = find(c);
+            if (child==null) {
+                char[] newKeys = new char[keys.length+1];
+                Trie[] newChildren = new Trie[keys.length+1];
+                System.arraycopy(keys, 0, newKeys, 0, keys.length);
+                System.arraycopy(children, 0, newChildren, 0, keys.length);
+                child = new Trie();
+                newKeys[keys.length] = c;
+                newChildren[keys.length] = child;
+                keys = newKeys;
+                children = newChildren;
+            }
+            return child;
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import javax.servlet.ServletRequest;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+
+/**
+ * <p>
+ *  {@link ServletRequestDataBinder} that only binds the fields
+ *  allowed by a {@link FieldMatcher}.  Request parameters that
+ *  aren't allowed are skipped while the property values are
+ *  collected rather than removed afterwards.
+ * </p>
+ */
+public class FieldMatchingServletRequestDataBinder
+    extends ServletRequestDataBinder {
+
+    private final FieldMatcher fieldMatcher;
+
+    /**
+     * Create a new FieldMatchingServletRequestDataBinder instance.
+     * @param target the target object to bind onto
+     * @param objectName the name of the target object
+     * @param fieldMatcher the allowed fields
+     */
+    public FieldMatchingServletRequestDataBinder(
+        Object target, String objectName, FieldMatcher fieldMatcher) {
+        super(target, objectName);
+        this.fieldMatcher = fieldMatcher;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind(ServletRequest request) {
+        MutablePropertyValues mpvs = fieldMatcher.getPropertyValues(request, getFieldMarkerPrefix());
+        if (request instanceof MultipartHttpServletRequest) {
+            bindMultipartFiles(((MultipartHttpServletRequest)request).getFileMap(), mpvs);
+        }
+        doBind(mpvs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isAllowed(String field) {
+        return fieldMatcher.isAllowed(field) && super.isAllowed(field);
+    }
+
+}
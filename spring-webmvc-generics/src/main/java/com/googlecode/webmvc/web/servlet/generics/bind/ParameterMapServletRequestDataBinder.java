@@ -0,0 +1,42 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import javax.servlet.ServletRequest;
+
+import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+
+/**
+ * <p>
+ *  {@link ServletRequestDataBinder} that binds the
+ *  {@link RequestParameterPropertyValues} read from the request's
+ *  parameter map instead of copying the parameters into the sorted
+ *  map of a
+ *  {@link org.springframework.web.bind.ServletRequestParameterPropertyValues}
+ *  first.  Multipart requests are bound the usual way.
+ * </p>
+ */
+public class ParameterMapServletRequestDataBinder
+    extends ServletRequestDataBinder {
+
+    /**
+     * Create a new ParameterMapServletRequestDataBinder instance.
+     * @param target the target object to bind onto
+     * @param objectName the name of the target object
+     */
+    public ParameterMapServletRequestDataBinder(Object target, String objectName) {
+        super(target, objectName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind(ServletRequest request) {
+        if (request instanceof MultipartHttpServletRequest) {
+            super.bind(request);
+            return;
+        }
+        doBind(new RequestParameterPropertyValues(request));
+    }
+
+}
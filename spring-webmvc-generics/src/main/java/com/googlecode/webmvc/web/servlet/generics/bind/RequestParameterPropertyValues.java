@@ -0,0 +1,87 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+
+/**
+ * <p>
+ *  The property values of a request's parameters, read straight
+ *  from the request's parameter map.  Unlike
+ *  {@link org.springframework.web.bind.ServletRequestParameterPropertyValues},
+ *  which copies the parameters into a sorted map first and then
+ *  into property values, this creates one {@link PropertyValue}
+ *  per parameter and nothing else.  Prefixes are stripped and
+ *  parameters with a single value are unwrapped to a String the
+ *  same way.  Being a {@link MutablePropertyValues} it is bound as
+ *  is, the <code>DataBinder</code> doesn't copy it again.
+ * </p>
+ *
+ * <p>
+ *  Parameters keep the order of the parameter map rather than
+ *  being sorted by name.
+ * </p>
+ */
+public class RequestParameterPropertyValues
+    extends MutablePropertyValues {
+
+    /**
+     * Creates the RequestParameterPropertyValues.
+     * @param request the request
+     */
+    public RequestParameterPropertyValues(ServletRequest request) {
+        this(request, null);
+    }
+
+    /**
+     * Creates the RequestParameterPropertyValues for the
+     * parameters starting with the given prefix.
+     * @param request the request
+     * @param fullPrefix the full prefix (including the separator),
+     * or null for all parameters
+     */
+    public RequestParameterPropertyValues(ServletRequest request, String fullPrefix) {
+        super(readParameters(request, (fullPrefix!=null) ? fullPrefix : ""));
+    }
+
+    /**
+     * Reads the property values from the request's parameter map.
+     * @param request the request
+     * @param fullPrefix the full prefix
+     * @return the property values
+     */
+    @SuppressWarnings("unchecked")
+    private static List<PropertyValue> readParameters(ServletRequest request, String fullPrefix) {
+        Map<String, String[]> parameters = request.getParameterMap();
+        List<PropertyValue> list = new ArrayList<PropertyValue>(parameters.size());
+        for (Map.Entry<String, String[]> entry : parameters.entrySet()) {
+            String name = entry.getKey();
+            Object value = unwrap(entry.getValue());
+            if (value!=null && name.startsWith(fullPrefix)) {
+                list.add(new PropertyValue(name.substring(fullPrefix.length()), value));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Unwraps the given parameter values the same way
+     * {@link org.springframework.web.util.WebUtils#getParametersStartingWith(ServletRequest, String)}
+     * does.
+     * @param values the values
+     * @return a String for a single value, the values for
+     * several or null for none
+     */
+    private static Object unwrap(String[] values) {
+        if (values==null || values.length==0) {
+            return null;
+        }
+        return (values.length>1) ? values : values[0];
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import java.beans.PropertyEditor;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.validation.BindingErrorProcessor;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.web.bind.ServletRequestDataBinder;
+
+/**
+ * <p>
+ *  The configuration of a {@link ServletRequestDataBinder} as it was
+ *  left by a controller's <code>prepareBinder</code> and
+ *  <code>initBinder</code> methods, so that it can be applied to the
+ *  binders of later requests without running those methods (and
+ *  creating the custom editors they register) again.
+ * </p>
+ *
+ * <p>
+ *  A template is recorded by configuring a {@link Recorder} instead
+ *  of a binder, and is immutable once recorded.  Editors keep the
+ *  value they convert in a field, so a template only holds editors
+ *  marked as {@link SharedPropertyEditor}s.  A template that was
+ *  recorded with other editors isn't complete (see
+ *  {@link #isComplete()}) and the binder has to be configured
+ *  again for every request instead.
+ * </p>
+ */
+public final class ServletRequestDataBinderTemplate {
+
+    private final boolean directFieldAccess;
+    private final String[] allowedFields;
+    private final String[] disallowedFields;
+    private final String[] requiredFields;
+    private final boolean ignoreUnknownFields;
+    private final boolean ignoreInvalidFields;
+    private final String fieldMarkerPrefix;
+    private final boolean bindEmptyMultipartFiles;
+    private final BindingErrorProcessor bindingErrorProcessor;
+    private final MessageCodesResolver messageCodesResolver;
+    private final Boolean extractOldValueForEditor;
+    private final Class<?>[] editorTypes;
+    private final String[] editorPaths;
+    private final PropertyEditor[] editors;
+    private final boolean complete;
+
+    /**
+     * Creates the ServletRequestDataBinderTemplate.
+     * @param recorder the recorder
+     */
+    private ServletRequestDataBinderTemplate(Recorder recorder) {
+        this.directFieldAccess          = recorder.directFieldAccess;
+        this.allowedFields              = recorder.getAllowedFields();
+        this.disallowedFields           = recorder.getDisallowedFields();
+        this.requiredFields             = recorder.getRequiredFields();
+        this.ignoreUnknownFields        = recorder.isIgnoreUnknownFields();
+        this.ignoreInvalidFields        = recorder.isIgnoreInvalidFields();
+        this.fieldMarkerPrefix          = recorder.getFieldMarkerPrefix();
+        this.bindEmptyMultipartFiles    = recorder.isBindEmptyMultipartFiles();
+        this.bindingErrorProcessor      = recorder.getBindingErrorProcessor();
+        this.messageCodesResolver       = recorder.messageCodesResolver;
+        this.extractOldValueForEditor   = recorder.extractOldValueForEditor;
+        this.editorTypes    = recorder.editorTypes.toArray(new Class<?>[recorder.editorTypes.size()]);
+        this.editorPaths    = recorder.editorPaths.toArray(new String[recorder.editorPaths.size()]);
+        this.editors        = recorder.editors.toArray(new PropertyEditor[recorder.editors.size()]);
+        this.complete       = !recorder.unsharedEditors;
+    }
+
+    /**
+     * Checks whether or not this template holds all of the recorded
+     * configuration, which it doesn't if editors that aren't
+     * {@link SharedPropertyEditor}s were registered.
+     * @return true if it does
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Applies this template to the given binder, which must
+     * not have been used or configured yet.  Editors that aren't
+     * {@link SharedPropertyEditor}s aren't applied.
+     * @param binder the binder
+     */
+    public void applyTo(ServletRequestDataBinder binder) {
+
+        // this has to come before anything that creates the binding result
+        if (directFieldAccess) {
+            binder.initDirectFieldAccess();
+        }
+        binder.setAllowedFields(allowedFields);
+        binder.setDisallowedFields(disallowedFields);
+        binder.setRequiredFields(requiredFields);
+        binder.setIgnoreUnknownFields(ignoreUnknownFields);
+        binder.setIgnoreInvalidFields(ignoreInvalidFields);
+        binder.setFieldMarkerPrefix(fieldMarkerPrefix);
+        binder.setBindEmptyMultipartFiles(bindEmptyMultipartFiles);
+        binder.setBindingErrorProcessor(bindingErrorProcessor);
+        if (messageCodesResolver!=null) {
+            binder.setMessageCodesResolver(messageCodesResolver);
+        }
+        if (extractOldValueForEditor!=null) {
+            binder.setExtractOldValueForEditor(extractOldValueForEditor.booleanValue());
+        }
+        for (int i=0; i<editors.length; i++) {
+            if (editorPaths[i]!=null) {
+                binder.registerCustomEditor(editorTypes[i], editorPaths[i], editors[i]);
+            } else {
+                binder.registerCustomEditor(editorTypes[i], editors[i]);
+            }
+        }
+    }
+
+    /**
+     * A binder without a target that records how it is configured,
+     * to be passed to <code>prepareBinder</code> and
+     * <code>initBinder</code> in place of a real binder.
+     */
+    public static final class Recorder
+        extends ServletRequestDataBinder {
+
+        private boolean directFieldAccess;
+        private MessageCodesResolver messageCodesResolver;
+        private Boolean extractOldValueForEditor;
+        private List<Class<?>> editorTypes = new ArrayList<Class<?>>();
+        private List<String> editorPaths = new ArrayList<String>();
+        private List<PropertyEditor> editors = new ArrayList<PropertyEditor>();
+        private boolean unsharedEditors;
+
+        /**
+         * Creates the Recorder.
+         * @param objectName the name of the target object
+         */
+        public Recorder(String objectName) {
+            super(null, objectName);
+        }
+
+        /**
+         * @return the template recorded so far
+         */
+        public ServletRequestDataBinderTemplate getTemplate() {
+            return new ServletRequestDataBinderTemplate(this);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void initDirectFieldAccess() {
+            // there's no target to access
+            this.directFieldAccess = true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setMessageCodesResolver(MessageCodesResolver messageCodesResolver) {
+            super.setMessageCodesResolver(messageCodesResolver);
+            this.messageCodesResolver = messageCodesResolver;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setExtractOldValueForEditor(boolean extractOldValueForEditor) {
+            super.setExtractOldValueForEditor(extractOldValueForEditor);
+            this.extractOldValueForEditor = Boolean.valueOf(extractOldValueForEditor);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public void registerCustomEditor(Class requiredType, PropertyEditor propertyEditor) {
+            super.registerCustomEditor(requiredType, propertyEditor);
+            record(requiredType, null, propertyEditor);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public void registerCustomEditor(Class requiredType, String field, PropertyEditor propertyEditor) {
+            super.registerCustomEditor(requiredType, field, propertyEditor);
+            record(requiredType, field, propertyEditor);
+        }
+
+        /**
+         * Records a custom editor, if it may be shared.
+         * @param requiredType the type
+         * @param field the field, or null
+         * @param propertyEditor the editor
+         */
+        private void record(Class<?> requiredType, String field, PropertyEditor propertyEditor) {
+            if (!(propertyEditor instanceof SharedPropertyEditor)) {
+                unsharedEditors = true;
+                return;
+            }
+            editorTypes.add(requiredType);
+            editorPaths.add(field);
+            editors.add(propertyEditor);
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import java.beans.PropertyEditor;
+
+/**
+ * <p>
+ *  Marks a {@link PropertyEditor} that may be used by several binders
+ *  at once, ie: one that keeps the value between <code>setAsText</code>
+ *  and <code>getValue</code> per thread.  Most editors, including
+ *  spring's <code>CustomDateEditor</code> and
+ *  <code>CustomNumberEditor</code>, keep it in a field and must not
+ *  be shared.  Only editors marked with this interface are kept in a
+ *  {@link ServletRequestDataBinderTemplate}.
+ * </p>
+ */
+public interface SharedPropertyEditor
+    extends PropertyEditor {
+
+}
@@ -0,0 +1,260 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.validation.DataBinder;
+
+import com.googlecode.webmvc.web.servlet.generics.util.ClassCache;
+
+/**
+ * <p>
+ *  A precomputed plan for binding the values of a {@link UrlMatch}
+ *  to a command class, worked out once per command class and
+ *  {@link UrlPattern}.  Each bound segment is set by calling the
+ *  property's setter directly with a converter that was picked
+ *  for the property's type up front, rather than going through
+ *  a BeanWrapper, property path parsing and PropertyEditor
+ *  lookups for every request.
+ * </p>
+ *
+ * <p>
+ *  Plans are only applicable when every bound segment is a
+ *  simple property with a setter whose type is a String, a
+ *  whole number (primitive or wrapper), a {@link UUID} or an
+ *  enum.  Otherwise, and for any value that the plan can't
+ *  convert the same way the standard binder would (ie: empty
+ *  values), {@link #bind(DataBinder, UrlMatch, Charset)} returns false and
+ *  the standard binder should be used, see
+ *  {@link UrlHttpServletRequestDataBinder#setBindingPlan(UrlBindingPlan)}.
+ * </p>
+ */
+public final class UrlBindingPlan {
+
+    private static final ClassCache<ConcurrentMap<String, UrlBindingPlan>> PLANS
+        = new ClassCache<ConcurrentMap<String, UrlBindingPlan>>() {
+            @Override
+            protected ConcurrentMap<String, UrlBindingPlan> computeValue(Class<?> clazz) {
+                return new ConcurrentHashMap<String, UrlBindingPlan>();
+            }
+        };
+
+    private final UrlPattern pattern;
+    private final String[] names;
+    private final Method[] setters;
+    private final Class<?>[] types;
+    private final boolean applicable;
+
+    /**
+     * Creates the UrlBindingPlan.
+     * @param commandClass the command class
+     * @param pattern the pattern
+     */
+    private UrlBindingPlan(Class<?> commandClass, UrlPattern pattern) {
+        this.pattern = pattern;
+        this.names = pattern.getPropertyNames(null);
+        this.setters = new Method[names.length];
+        this.types = new Class<?>[names.length];
+
+        // find a setter and a converter for every bound segment
+        boolean canApply = true;
+        for (int i=0; i<names.length && canApply; i++) {
+            if (names[i]==null) {
+                continue;
+            }
+            PropertyDescriptor descriptor = isSimple(names[i])
+                ? BeanUtils.getPropertyDescriptor(commandClass, names[i]) : null;
+            Method setter = (descriptor!=null) ? descriptor.getWriteMethod() : null;
+            if (setter!=null && isConvertible(setter.getParameterTypes()[0])) {
+                setter.setAccessible(true);
+                setters[i] = setter;
+                types[i] = setter.getParameterTypes()[0];
+            } else {
+                canApply = false;
+            }
+        }
+        this.applicable = canApply;
+    }
+
+    /**
+     * Returns the plan for the given command class and pattern.
+     * Plans are cached by the pattern's text, so every compiled
+     * instance of a pattern (ie: one per prototype controller)
+     * shares the same plan.
+     * @param commandClass the command class
+     * @param pattern the pattern
+     * @return the plan
+     */
+    public static UrlBindingPlan forClass(Class<?> commandClass, UrlPattern pattern) {
+        ConcurrentMap<String, UrlBindingPlan> plans = PLANS.get(commandClass);
+        UrlBindingPlan plan = plans.get(pattern.getPattern());
+        if (plan==null) {
+            plan = new UrlBindingPlan(commandClass, pattern);
+            UrlBindingPlan existing = plans.putIfAbsent(pattern.getPattern(), plan);
+            plan = (existing!=null) ? existing : plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Binds the values of the given match to the given binder's
+     * target.  Nothing is bound and false is returned if this plan
+     * isn't applicable to the match or the binder, ie: the binder
+     * has custom editors, required fields or field restrictions
+     * for the properties, or if a value can't be converted.  If
+     * a setter throws an exception false is returned as well, so
+     * that the binder can record the error as it normally would.
+     * @param binder the binder
+     * @param match the match
+     * @param charset the charset to decode the values with, or null
+     * @return true if the values were bound
+     * @throws IllegalAccessException if a setter can't be called
+     */
+    public boolean bind(DataBinder binder, UrlMatch match, Charset charset)
+        throws IllegalAccessException {
+        if (!applicable || !match.getPattern().equals(pattern)
+            || !isPlain(binder.getAllowedFields())
+            || !isPlain(binder.getDisallowedFields())
+            || !isPlain(binder.getRequiredFields())) {
+            return false;
+        }
+
+        // convert everything first
+        Object[] values = new Object[names.length];
+        for (int i=0; i<names.length && i<match.getSegmentCount(); i++) {
+            if (names[i]==null) {
+                continue;
+            }
+            if (binder.findCustomEditor(types[i], names[i])!=null) {
+                return false;
+            }
+            values[i] = convert(types[i], match.getSegmentValue(i, charset));
+            if (values[i]==null) {
+                return false;
+            }
+        }
+
+        // then set it
+        Object target = binder.getTarget();
+        for (int i=0; i<names.length && i<match.getSegmentCount(); i++) {
+            if (values[i]!=null) {
+                try {
+                    setters[i].invoke(target, values[i]);
+                } catch (InvocationTargetException e) {
+                    // let the binder record the error
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether or not the plan can be used at all
+     */
+    public boolean isApplicable() {
+        return applicable;
+    }
+
+    /**
+     * Converts the given value to the given type.
+     * @param type the type
+     * @param value the value
+     * @return the converted value, or null if it can't be
+     * converted exactly like the standard binder would
+     */
+    @SuppressWarnings("unchecked")
+    private static Object convert(Class<?> type, String value) {
+        if (type==String.class) {
+            return value;
+        } else if (value.length()==0) {
+            return null;
+        }
+        try {
+            if (type==Long.class || type==long.class) {
+                return isDecimal(value) ? Long.valueOf(value) : null;
+            } else if (type==Integer.class || type==int.class) {
+                return isDecimal(value) ? Integer.valueOf(value) : null;
+            } else if (type==Short.class || type==short.class) {
+                return isDecimal(value) ? Short.valueOf(value) : null;
+            } else if (type==Byte.class || type==byte.class) {
+                return isDecimal(value) ? Byte.valueOf(value) : null;
+            } else if (type==UUID.class) {
+                return UUID.fromString(value);
+            } else if (type.isEnum()) {
+                return Enum.valueOf(type.asSubclass(Enum.class), value);
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException too, let the binder report it
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether or not the given type has a converter.
+     * @param type the type
+     * @return true if it does
+     */
+    private static boolean isConvertible(Class<?> type) {
+        return type==String.class
+            || type==Long.class || type==long.class
+            || type==Integer.class || type==int.class
+            || type==Short.class || type==short.class
+            || type==Byte.class || type==byte.class
+            || type==UUID.class || type.isEnum();
+    }
+
+    /**
+     * Checks whether or not the given value is a plain decimal
+     * number, which is parsed the same way by the standard
+     * binder (that also accepts hex, ie: <code>0x1F</code>).
+     * @param value the value
+     * @return true if it is
+     */
+    private static boolean isDecimal(String value) {
+        int start = (value.charAt(0)=='-') ? 1 : 0;
+        if (start==value.length()) {
+            return false;
+        }
+        for (int i=start; i<value.length(); i++) {
+            if (value.charAt(i)<'0' || value.charAt(i)>'9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether or not the given property name is a
+     * simple one, ie: not a nested or indexed property path.
+     * @param name the name
+     * @return true if it is
+     */
+    private static boolean isSimple(String name) {
+        for (int i=0; i<name.length(); i++) {
+            char c = name.charAt(i);
+            if (c=='.' || c=='[' || c==']') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether or not the given binder field
+     * configuration is empty.
+     * @param fields the fields
+     * @return true if it is
+     */
+    private static boolean isPlain(String[] fields) {
+        return fields==null || fields.length==0;
+    }
+
+}
@@ -1,9 +1,15 @@
 package com.googlecode.webmvc.web.servlet.generics.bind;
 
+import java.nio.charset.Charset;
+
 import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
 import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.bind.ServletRequestParameterPropertyValues;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
 
 /**
  * <p>
@@ -12,12 +18,27 @@ import org.springframework.web.bind.ServletRequestDataBinder;
  *  more information on the url patterns see {@link UrlPropertyValues}.
  * </p>
  * 
+ * <p>
+ *  By default only the url is bound.  With
+ *  {@link #setBindParameters(boolean)} the request parameters
+ *  (and multipart files) are bound as well, in the same pass,
+ *  and {@link #setUrlPrecedence(boolean)} decides which wins
+ *  when both have a value for the same property.
+ * </p>
+ * 
  * {@see UrlPropertyValues}
  */
 public class UrlHttpServletRequestDataBinder 
     extends ServletRequestDataBinder {
 
-    private String urlPattern;
+    private UrlPattern urlPattern;
+    private boolean bindParameters  = false;
+    private boolean urlPrecedence   = true;
+    private UrlBindingPlan bindingPlan;
+    private Charset urlCharset;
+    private int matrixParameterMode = UrlPropertyValues.MATRIX_IGNORED;
+    private FieldMatcher fieldMatcher;
+    private boolean bindParameterMap = false;
     
     /**
      * Create a new UrlServletRequestDataBinder instance, with default object name.
@@ -27,6 +48,17 @@ public class UrlHttpServletRequestDataBinder
      * @see ServletRequestDataBinder#DEFAULT_OBJECT_NAME
      */
     public UrlHttpServletRequestDataBinder(Object target, String urlPattern) {
+        this(target, UrlPattern.compile(urlPattern));
+    }
+
+    /**
+     * Create a new UrlServletRequestDataBinder instance, with default object name.
+     * @param target the target object to bind onto (or <code>null</code>
+     * if the binder is just used to convert a plain parameter value)
+     * @param urlPattern the compiled urlPattern
+     * @see ServletRequestDataBinder#DEFAULT_OBJECT_NAME
+     */
+    public UrlHttpServletRequestDataBinder(Object target, UrlPattern urlPattern) {
         super(target);
         this.urlPattern = urlPattern;
     }
@@ -39,6 +71,17 @@ public class UrlHttpServletRequestDataBinder
      * @param objectName the name of the target object
      */
     public UrlHttpServletRequestDataBinder(Object target, String urlPattern, String objectName) {
+        this(target, UrlPattern.compile(urlPattern), objectName);
+    }
+
+    /**
+     * Create a new UrlServletRequestDataBinder instance.
+     * @param target the target object to bind onto (or <code>null</code>
+     * if the binder is just used to convert a plain parameter value)
+     * @param urlPattern the compiled urlPattern
+     * @param objectName the name of the target object
+     */
+    public UrlHttpServletRequestDataBinder(Object target, UrlPattern urlPattern, String objectName) {
         super(target, objectName);
         this.urlPattern = urlPattern;
     }
@@ -58,14 +101,135 @@ public class UrlHttpServletRequestDataBinder
         // cast as http 
         HttpServletRequest httpRequest = (HttpServletRequest)request;
         
-        // get the url  and remove the context
+        // use the match from routing, or match the url
+        // (skipping the context) and share it with the rest
+        // of the request, ie: onBind hooks and redirects
         String url = httpRequest.getRequestURI();
-        if (url.startsWith(httpRequest.getContextPath())) {
-            url = url.substring(httpRequest.getContextPath().length());
+        String contextPath = httpRequest.getContextPath();
+        int offset = url.startsWith(contextPath) ? contextPath.length() : 0;
+        UrlMatch match = UrlMatch.get(httpRequest);
+        if (match==null || !match.isMatchOf(this.urlPattern, url, offset)) {
+            match = this.urlPattern.match(url, offset);
+            match.store(httpRequest);
+        }
+        
+        // just the url, directly if possible
+        if (!bindParameters) {
+            boolean direct = bindingPlan!=null && fieldMatcher==null
+                && (matrixParameterMode==UrlPropertyValues.MATRIX_IGNORED || !match.hasMatrixParameters());
+            if (!direct || !bindingPlan.bind(this, match, urlCharset)) {
+                doBind(new UrlPropertyValues(match, null, urlCharset, matrixParameterMode));
+            }
+            return;
         }
         
-        // bind
-        doBind(new UrlPropertyValues(this.urlPattern, url));
+        // the url and the parameters together
+        MutablePropertyValues mpvs;
+        if (fieldMatcher!=null) {
+            mpvs = fieldMatcher.getPropertyValues(httpRequest, getFieldMarkerPrefix());
+        } else if (bindParameterMap) {
+            mpvs = new RequestParameterPropertyValues(httpRequest);
+        } else {
+            mpvs = new ServletRequestParameterPropertyValues(httpRequest);
+        }
+        if (httpRequest instanceof MultipartHttpServletRequest) {
+            bindMultipartFiles(((MultipartHttpServletRequest)httpRequest).getFileMap(), mpvs);
+        }
+        PropertyValue[] urlValues = new UrlPropertyValues(
+            match, null, urlCharset, matrixParameterMode).getPropertyValues();
+        for (PropertyValue pv : urlValues) {
+            if (urlPrecedence || !mpvs.contains(pv.getName())) {
+                mpvs.addPropertyValue(pv);
+            }
+        }
+        doBind(mpvs);
+    }
+
+    /**
+     * Sets the character encoding that url values are
+     * percent-decoded with before they're bound, ie: UTF-8.  The
+     * default, null, binds the values as they appear in the request
+     * uri, which is what subclasses that decode the values
+     * themselves (ie: in <code>onBind</code>) rely on.
+     * @param urlEncoding the urlEncoding to set
+     */
+    public void setUrlEncoding(String urlEncoding) {
+        this.urlCharset = (urlEncoding!=null) ? Charset.forName(urlEncoding) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isAllowed(String field) {
+        return (fieldMatcher==null || fieldMatcher.isAllowed(field))
+            && super.isAllowed(field);
+    }
+
+    /**
+     * Sets the precompiled allowed fields, request parameters
+     * that aren't allowed are skipped while they're collected.
+     * @param fieldMatcher the fieldMatcher to set, or null
+     */
+    public void setFieldMatcher(FieldMatcher fieldMatcher) {
+        this.fieldMatcher = fieldMatcher;
+    }
+
+    /**
+     * Sets whether or not the request parameters, when they're bound,
+     * are read straight from the request's parameter map (see
+     * {@link RequestParameterPropertyValues}) rather than copied into
+     * a sorted map first.  It has no effect with a field matcher.
+     * The default is false.
+     * @param bindParameterMap the bindParameterMap to set
+     */
+    public void setBindParameterMap(boolean bindParameterMap) {
+        this.bindParameterMap = bindParameterMap;
+    }
+
+    /**
+     * Sets how matrix parameters (ie: <code>/orders;page=2</code>)
+     * are bound, one of {@link UrlPropertyValues#MATRIX_IGNORED}
+     * (the default, they're left in the values as they always
+     * have been),
+     * {@link UrlPropertyValues#MATRIX_TOP_LEVEL} or
+     * {@link UrlPropertyValues#MATRIX_NESTED}.
+     * @param matrixParameterMode the matrixParameterMode to set
+     */
+    public void setMatrixParameterMode(int matrixParameterMode) {
+        this.matrixParameterMode = matrixParameterMode;
+    }
+
+    /**
+     * Sets the plan used to bind the url straight to the target's
+     * setters, bypassing the BeanWrapper.  The plan is only used
+     * when just the url is bound and it applies to the target,
+     * otherwise the url is bound as usual.
+     * @param bindingPlan the bindingPlan to set
+     */
+    public void setBindingPlan(UrlBindingPlan bindingPlan) {
+        this.bindingPlan = bindingPlan;
+    }
+
+    /**
+     * Sets whether or not the request parameters are bound
+     * along with the url, in a single pass.  The default is
+     * false, only the url is bound.
+     * @param bindParameters the bindParameters to set
+     */
+    public void setBindParameters(boolean bindParameters) {
+        this.bindParameters = bindParameters;
+    }
+
+    /**
+     * Sets whether the url or the request parameters win when
+     * both have a value for the same property, this only applies
+     * when {@link #setBindParameters(boolean)} is true.  The
+     * default is true, the url wins.
+     * @param urlPrecedence the urlPrecedence to set
+     */
+    public void setUrlPrecedence(boolean urlPrecedence) {
+        this.urlPrecedence = urlPrecedence;
     }
     
 }
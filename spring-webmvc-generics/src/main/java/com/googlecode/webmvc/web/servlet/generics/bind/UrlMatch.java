@@ -0,0 +1,361 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import javax.servlet.ServletRequest;
+
+/**
+ * <p>
+ *  The result of matching a url against a {@link UrlPattern}.
+ *  Rather than copying the values out of the url it records where
+ *  each segment starts and ends in the original url, values are
+ *  only extracted when they're asked for.
+ * </p>
+ *
+ * <p>
+ *  A match is stored as a request attribute by whoever matched
+ *  the url first (ie: a handler mapping, or the binder when there
+ *  isn't one) so that the url is only parsed once per request.
+ *  Controllers can get at it in their <code>onBind</code> hooks
+ *  and {@link com.googlecode.webmvc.web.servlet.generics.view.TokenReplacementRedirectView}
+ *  uses it for tokens that aren't in the model, which makes it
+ *  easy to link back to the same resource.
+ * </p>
+ */
+public final class UrlMatch {
+
+    /**
+     * The request attribute that a match is stored under.
+     */
+    public static final String REQUEST_ATTRIBUTE = UrlMatch.class.getName();
+
+    private final UrlPattern pattern;
+    private final String url;
+    private final int offset;
+    private final int[] bounds;
+    private final int segmentCount;
+
+    /**
+     * Creates the UrlMatch for a url that was matched from
+     * its start.
+     * @param pattern the pattern that was matched
+     * @param url the url that was matched
+     * @param bounds the start and end index of each segment
+     * in the url, in pairs
+     * @param segmentCount the number of segments matched
+     */
+    public UrlMatch(UrlPattern pattern, String url, int[] bounds, int segmentCount) {
+        this(pattern, url, 0, bounds, segmentCount);
+    }
+
+    /**
+     * Creates the UrlMatch.
+     * @param pattern the pattern that was matched
+     * @param url the url that was matched
+     * @param offset the index in the url matching started at
+     * @param bounds the start and end index of each segment
+     * in the url, in pairs
+     * @param segmentCount the number of segments matched
+     */
+    public UrlMatch(UrlPattern pattern, String url, int offset, int[] bounds, int segmentCount) {
+        this.pattern = pattern;
+        this.url = url;
+        this.offset = offset;
+        this.bounds = bounds;
+        this.segmentCount = segmentCount;
+    }
+
+    /**
+     * Returns the match stored in the given request, if any.
+     * @param request the request
+     * @return the match or null
+     */
+    public static UrlMatch get(ServletRequest request) {
+        Object match = request.getAttribute(REQUEST_ATTRIBUTE);
+        return (match instanceof UrlMatch) ? (UrlMatch)match : null;
+    }
+
+    /**
+     * Checks whether or not this match is the result of matching
+     * the given url, from the given offset, against the given
+     * pattern.  A stored match is only reused when it is, a
+     * forward to another url leaves the previous url's match in
+     * the request.
+     * @param pattern the pattern
+     * @param url the url
+     * @param offset the index in the url to start at
+     * @return true if it is
+     */
+    public boolean isMatchOf(UrlPattern pattern, String url, int offset) {
+        return this.offset==offset && this.url.equals(url) && this.pattern.equals(pattern);
+    }
+
+    /**
+     * Stores this match in the given request.
+     * @param request the request
+     */
+    public void store(ServletRequest request) {
+        request.setAttribute(REQUEST_ATTRIBUTE, this);
+    }
+
+    /**
+     * Returns the value of the given property, or null if
+     * the pattern doesn't bind it.
+     * @param name the property name
+     * @return the value
+     */
+    public String getValue(String name) {
+        String[] names = pattern.getPropertyNames(null);
+        for (int i=0; i<segmentCount && i<names.length; i++) {
+            if (name.equals(names[i])) {
+                return getSegmentValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of the given property without its matrix
+     * parameters, percent-decoded using the given charset, or null
+     * if the pattern doesn't bind it.  See
+     * {@link #getSegmentPathValue(int, Charset)}.
+     * @param name the property name
+     * @param charset the charset, or null to not decode
+     * @return the value
+     */
+    public String getPathValue(String name, Charset charset) {
+        String[] names = pattern.getPropertyNames(null);
+        for (int i=0; i<segmentCount && i<names.length; i++) {
+            if (name.equals(names[i])) {
+                return getSegmentPathValue(i, charset);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of the segment at the given index without
+     * its matrix parameters, percent-decoded using the given
+     * charset.  The pieces of a <code>{name*}</code> segment may
+     * each have their own parameters, ie: <code>a;x=1/b</code> has
+     * the value <code>a/b</code>.
+     * @param index the index
+     * @param charset the charset, or null to not decode
+     * @return the value
+     */
+    public String getSegmentPathValue(int index, Charset charset) {
+        int start = getSegmentStart(index);
+        int end = getSegmentEnd(index);
+        int valueEnd = indexOfMatrix(url, start, end);
+        if (!pattern.isTail(index) || valueEnd==end) {
+            return decode(start, valueEnd, charset);
+        }
+        StringBuilder buff = new StringBuilder(end-start);
+        for (int pieceStart=start; pieceStart<=end;) {
+            int pieceEnd = url.indexOf('/', pieceStart);
+            if (pieceEnd==-1 || pieceEnd>end) {
+                pieceEnd = end;
+            }
+            if (pieceStart>start) {
+                buff.append('/');
+            }
+            buff.append(decode(pieceStart, indexOfMatrix(url, pieceStart, pieceEnd), charset));
+            pieceStart = pieceEnd+1;
+        }
+        return buff.toString();
+    }
+
+    /**
+     * Returns the given part of the url, percent-decoded
+     * using the given charset.
+     * @param start the start index
+     * @param end the end index
+     * @param charset the charset, or null to not decode
+     * @return the value
+     */
+    private String decode(int start, int end, Charset charset) {
+        return (charset!=null) ? decode(url, start, end, charset) : url.substring(start, end);
+    }
+
+    /**
+     * Returns the name of the property bound by the segment
+     * at the given index, or null if it isn't bound.
+     * @param index the index
+     * @return the property name
+     */
+    public String getPropertyName(int index) {
+        return pattern.getPropertyNames(null)[index];
+    }
+
+    /**
+     * Returns the value of the segment at the given index.
+     * @param index the index
+     * @return the value
+     */
+    public String getSegmentValue(int index) {
+        return url.substring(getSegmentStart(index), getSegmentEnd(index));
+    }
+
+    /**
+     * Returns the value of the segment at the given index,
+     * percent-decoded using the given charset (and with
+     * <code>+</code> decoded as a space, like
+     * {@link java.net.URLDecoder}).  The segment is decoded in
+     * a single pass and segments that don't need decoding are
+     * returned as is.
+     * @param index the index
+     * @param charset the charset, or null to not decode
+     * @return the value
+     */
+    public String getSegmentValue(int index, Charset charset) {
+        return (charset!=null)
+            ? decode(url, getSegmentStart(index), getSegmentEnd(index), charset)
+            : getSegmentValue(index);
+    }
+
+    /**
+     * Returns the index in the url where the matrix parameters
+     * (<code>;name=value</code>) of the given part of it start,
+     * ie: where the segment's value ends.
+     * @param url the url
+     * @param start the start of the segment
+     * @param end the end of the segment
+     * @return the index of the first <code>;</code>, or end
+     * if there are no parameters
+     */
+    public static int indexOfMatrix(String url, int start, int end) {
+        for (int i=start; i<end; i++) {
+            if (url.charAt(i)==';') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Checks whether or not any of the matched segments
+     * have matrix parameters.
+     * @return true if they do
+     */
+    public boolean hasMatrixParameters() {
+        for (int i=0; i<segmentCount; i++) {
+            if (indexOfMatrix(url, getSegmentStart(i), getSegmentEnd(i))<getSegmentEnd(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Percent-decodes the given part of a string.  Malformed
+     * escapes are kept as they are.
+     * @param value the string
+     * @param start the index to start at
+     * @param end the index to end at
+     * @param charset the charset the escaped bytes are in
+     * @return the decoded value
+     */
+    public static String decode(String value, int start, int end, Charset charset) {
+
+        // the fast path
+        int first = start;
+        while (first<end && value.charAt(first)!='%' && value.charAt(first)!='+') {
+            first++;
+        }
+        if (first==end) {
+            return value.substring(start, end);
+        }
+
+        // decode the rest
+        StringBuilder buff = new StringBuilder(end-start);
+        buff.append(value, start, first);
+        byte[] bytes = null;
+        int i = first;
+        while (i<end) {
+            char c = value.charAt(i);
+            if (c=='+') {
+                buff.append(' ');
+                i++;
+            } else if (c=='%' && isEscape(value, i, end)) {
+
+                // a run of escaped bytes
+                if (bytes==null) {
+                    bytes = new byte[(end-i)/3];
+                }
+                int count = 0;
+                while (i<end && value.charAt(i)=='%' && isEscape(value, i, end)) {
+                    bytes[count++] = (byte)((Character.digit(value.charAt(i+1), 16)<<4)
+                        + Character.digit(value.charAt(i+2), 16));
+                    i += 3;
+                }
+                buff.append(charset.decode(ByteBuffer.wrap(bytes, 0, count)));
+            } else {
+                buff.append(c);
+                i++;
+            }
+        }
+        return buff.toString();
+    }
+
+    /**
+     * Checks whether or not there is a valid escape,
+     * ie: <code>%2F</code>, at the given index.
+     * @param value the value
+     * @param index the index of the %
+     * @param end the end of the value
+     * @return true if there is
+     */
+    private static boolean isEscape(String value, int index, int end) {
+        return index+2<end
+            && Character.digit(value.charAt(index+1), 16)!=-1
+            && Character.digit(value.charAt(index+2), 16)!=-1;
+    }
+
+    /**
+     * Returns the index in the url the given segment starts at.
+     * @param index the segment
+     * @return the index in the url
+     */
+    public int getSegmentStart(int index) {
+        return bounds[2*index];
+    }
+
+    /**
+     * Returns the index in the url the given segment ends at.
+     * @param index the segment
+     * @return the index in the url
+     */
+    public int getSegmentEnd(int index) {
+        return bounds[2*index+1];
+    }
+
+    /**
+     * @return the number of segments matched
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * @return the pattern
+     */
+    public UrlPattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return the url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the index in the url matching started at
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+}
@@ -0,0 +1,349 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ *  A compiled url pattern, see {@link UrlPropertyValues} for the
+ *  syntax.  Compiling the pattern splits it into its segments once
+ *  so that binding a request only has to scan the request's url.
+ * </p>
+ *
+ * <p>
+ *  Besides plain property names a segment may be written as
+ *  <code>{name}</code>.  As soon as one segment of a pattern
+ *  uses braces the segments without braces are literals that
+ *  aren't bound, ie: <code>/person/{id}/{name}</code>.  A
+ *  segment may be constrained with a regular expression, ie:
+ *  <code>{id:\d+}</code>, and the last segment may be written
+ *  as <code>{name*}</code> to bind the rest of the url,
+ *  slashes and all, ie: <code>/files/{path*}</code>.
+ * </p>
+ *
+ * <p>
+ *  Instances are immutable and thread safe.  Patterns compiled
+ *  from the same text are equal, so that every instance of a
+ *  prototype controller (each of which compiles its own pattern)
+ *  can use the match of the handler mapping.
+ * </p>
+ */
+public final class UrlPattern {
+
+    private final String pattern;
+    private final String[] segments;
+    private final String[] propertyNames;
+    private final Pattern[] constraints;
+    private final boolean template;
+    private final boolean tail;
+    private final ConcurrentMap<String, String[]> prefixedPropertyNames
+        = new ConcurrentHashMap<String, String[]>();
+
+    /**
+     * Creates the UrlPattern.
+     * @param pattern the pattern
+     * @throws IllegalArgumentException if a <code>{name*}</code>
+     * segment isn't the last one
+     */
+    private UrlPattern(String pattern) {
+        this.pattern = pattern;
+
+        // split it, ignoring trailing slashes like String.split
+        List<String> parts = new ArrayList<String>();
+        int start = 0;
+        for (int end = pattern.indexOf('/'); end!=-1; end = pattern.indexOf('/', start)) {
+            parts.add(pattern.substring(start, end));
+            start = end+1;
+        }
+        parts.add(pattern.substring(start));
+        while (!parts.isEmpty() && parts.get(parts.size()-1).length()==0) {
+            parts.remove(parts.size()-1);
+        }
+        this.segments = parts.toArray(new String[parts.size()]);
+
+        // work out the property names and constraints
+        boolean isTemplate = false;
+        for (String segment : segments) {
+            isTemplate |= isVariable(segment);
+        }
+        boolean hasTail = false;
+        this.propertyNames = new String[segments.length];
+        this.constraints = new Pattern[segments.length];
+        for (int i=0; i<segments.length; i++) {
+            if (isVariable(segments[i])) {
+                String name = segments[i].substring(1, segments[i].length()-1);
+                int colon = name.indexOf(':');
+                if (colon!=-1) {
+                    constraints[i] = Pattern.compile(name.substring(colon+1));
+                    name = name.substring(0, colon);
+                } else if (name.endsWith("*")) {
+                    if (i!=segments.length-1) {
+                        throw new IllegalArgumentException(
+                            "Only the last segment of "+pattern+" may be "+segments[i]);
+                    }
+                    name = name.substring(0, name.length()-1);
+                    hasTail = true;
+                }
+                propertyNames[i] = name;
+            } else if (!isTemplate && segments[i].length()>0) {
+                propertyNames[i] = segments[i];
+            }
+        }
+        this.template = isTemplate;
+        this.tail = hasTail;
+    }
+
+    /**
+     * Compiles the given pattern.
+     * @param pattern the pattern
+     * @return the compiled pattern
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static UrlPattern compile(String pattern) {
+        return new UrlPattern(pattern);
+    }
+
+    /**
+     * Checks whether or not the given segment is a
+     * <code>{name}</code> segment.
+     * @param segment the segment
+     * @return true if it is
+     */
+    private static boolean isVariable(String segment) {
+        return segment.length()>2 && segment.charAt(0)=='{'
+            && segment.charAt(segment.length()-1)=='}';
+    }
+
+    /**
+     * Returns the property names bound by each segment, with the
+     * given prefix removed.  Segments that aren't bound, including
+     * those that don't start with the prefix, have a null name.
+     * The returned array is shared and must not be modified.
+     * @param prefix the full prefix (including the separator),
+     * or null for none
+     * @return the property names, indexed by segment
+     */
+    public String[] getPropertyNames(String prefix) {
+        if (prefix==null || prefix.length()==0) {
+            return propertyNames;
+        }
+        String[] names = prefixedPropertyNames.get(prefix);
+        if (names==null) {
+            names = new String[propertyNames.length];
+            for (int i=0; i<propertyNames.length; i++) {
+                if (propertyNames[i]!=null && propertyNames[i].startsWith(prefix)) {
+                    names[i] = propertyNames[i].substring(prefix.length());
+                }
+            }
+            prefixedPropertyNames.putIfAbsent(prefix, names);
+        }
+        return names;
+    }
+
+    /**
+     * Finds the segments of the given url, starting at the given
+     * offset, for each of this pattern's segments.  Only the url
+     * is scanned and nothing is copied out of it, segments are
+     * recorded as offsets into the url.  Like String.split,
+     * trailing empty segments of the url don't count.  Literals
+     * and constraints aren't checked, see
+     * {@link #matchStrictly(String, int)}.
+     * @param url the url
+     * @param offset the index in the url to start at
+     * @return the match
+     */
+    public UrlMatch match(String url, int offset) {
+        int[] bounds = new int[2*segments.length];
+        int count = 0;
+        int start = offset;
+        while (count<segments.length && start<=url.length()) {
+            int end = url.indexOf('/', start);
+            if (end==-1) {
+                end = url.length();
+            }
+            if (end==start && isTrailing(url, start)) {
+                break;
+            }
+
+            // the tail takes the rest, less trailing slashes
+            if (tail && count==segments.length-1) {
+                end = url.length();
+                while (url.charAt(end-1)=='/') {
+                    end--;
+                }
+            }
+            bounds[2*count]   = start;
+            bounds[2*count+1] = end;
+            count++;
+            start = end+1;
+        }
+        return new UrlMatch(this, url, offset, bounds, count);
+    }
+
+    /**
+     * Like {@link #match(String, int)} but only matches urls whose
+     * segments satisfy this pattern's constraints and, when the
+     * pattern uses braces, contain its literal segments.  Like
+     * {@link com.googlecode.webmvc.web.servlet.generics.handler.UrlPatternTree},
+     * the url must have exactly as many segments as the pattern,
+     * unless the pattern ends with a <code>{name*}</code> segment
+     * (which may be empty), and segments that bind a property
+     * without a constraint mustn't be empty.
+     * @param url the url
+     * @param offset the index in the url to start at
+     * @return the match, or null if the url doesn't match
+     */
+    public UrlMatch matchStrictly(String url, int offset) {
+        UrlMatch match = match(url, offset);
+        int count = match.getSegmentCount();
+        if (count<segments.length-((tail) ? 1 : 0)) {
+            return null;
+        }
+        int end = (count>0) ? match.getSegmentEnd(count-1) : offset;
+        if (!isTrailing(url, end)) {
+            return null;
+        }
+        for (int i=0; i<count; i++) {
+            int start = match.getSegmentStart(i);
+            int segmentEnd = match.getSegmentEnd(i);
+            if (!matches(i, url, start, segmentEnd)
+                || (start==segmentEnd && propertyNames[i]!=null && constraints[i]==null && !isTail(i))) {
+                return null;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Checks whether or not the given part of a url satisfies the
+     * segment at the given index, ie: it is the literal or it
+     * matches the constraint.  Matrix parameters aren't part of
+     * a segment's value, ie: <code>orders;page=2</code> matches
+     * the literal <code>orders</code>.  Nothing is copied out
+     * of the url.
+     * @param index the index of the segment
+     * @param url the url
+     * @param start the index in the url the segment starts at
+     * @param end the index in the url the segment ends at
+     * @return true if it does
+     */
+    public boolean matches(int index, String url, int start, int end) {
+        int valueEnd = UrlMatch.indexOfMatrix(url, start, end);
+        if (constraints[index]!=null) {
+            return constraints[index].matcher(url).region(start, valueEnd).matches();
+        } else if (template && propertyNames[index]==null) {
+            String literal = segments[index];
+            return literal.length()==valueEnd-start && url.regionMatches(start, literal, 0, literal.length());
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether or not the rest of the url,
+     * starting at the given index, is only slashes.
+     * @param url the url
+     * @param index the index
+     * @return true if it is
+     */
+    private static boolean isTrailing(String url, int index) {
+        for (int i=index; i<url.length(); i++) {
+            if (url.charAt(i)!='/') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether or not the pattern uses braces, in which
+     * case segments without braces are literals.
+     * @return true if it does
+     */
+    public boolean isTemplate() {
+        return template;
+    }
+
+    /**
+     * Checks whether or not the segment at the given index
+     * is a literal, ie: it doesn't bind a property and the
+     * url has to contain it as is.
+     * @param index the index
+     * @return true if it is a literal
+     */
+    public boolean isLiteral(int index) {
+        return propertyNames[index]==null;
+    }
+
+    /**
+     * Returns the constraint of the segment at the given index.
+     * @param index the index
+     * @return the constraint, or null if there isn't one
+     */
+    public Pattern getConstraint(int index) {
+        return constraints[index];
+    }
+
+    /**
+     * Checks whether or not the segment at the given index
+     * is a <code>{name*}</code> segment that binds the rest
+     * of the url.
+     * @param index the index
+     * @return true if it is
+     */
+    public boolean isTail(int index) {
+        return tail && index==segments.length-1;
+    }
+
+    /**
+     * @return the number of segments in the pattern
+     */
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Returns the segment at the given index as it was written
+     * in the pattern.
+     * @param index the index
+     * @return the segment
+     */
+    public String getSegment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * @return the pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj==this
+            || (obj instanceof UrlPattern && ((UrlPattern)obj).pattern.equals(pattern));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return pattern.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+}
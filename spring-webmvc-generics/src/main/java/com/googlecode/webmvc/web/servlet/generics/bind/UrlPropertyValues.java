@@ -1,9 +1,9 @@
 package com.googlecode.webmvc.web.servlet.generics.bind;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.Charset;
 
 import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
 import org.springframework.web.bind.ServletRequestParameterPropertyValues;
 
 /**
@@ -38,6 +38,16 @@ import org.springframework.web.bind.ServletRequestParameterPropertyValues;
  * </p>
  * 
  * <p>
+ *  Alternatively the bound segments can be written in braces,
+ *  in which case the other segments are literals that are
+ *  never bound:
+ * 
+ *  <pre>
+ *      /person/{id}/{name}
+ *  </pre>
+ * </p>
+ * 
+ * <p>
  *  Upon accessing the url mentioned earlier, the PersonCommand
  *  object would have an id of <code>123L</code> and a name
  *  of <code>"name"</code>.  For parts of a url that shouldn't
@@ -47,6 +57,20 @@ import org.springframework.web.bind.ServletRequestParameterPropertyValues;
  * </p>
  * 
  * <p>
+ *  Segments may carry matrix parameters, ie:
+ *  <code>/orders;status=open;page=3/123</code>.  By default
+ *  ({@link #MATRIX_IGNORED}) they aren't parsed and stay part
+ *  of the segment's value, as they always have.  With
+ *  {@link #MATRIX_TOP_LEVEL} they're split off the value and bound as
+ *  properties of their own (<code>status</code> and
+ *  <code>page</code>) and with {@link #MATRIX_NESTED} they're
+ *  bound as nested properties of the segment's variable
+ *  (<code>filter.status</code> for a <code>{filter}</code>
+ *  segment), segments without a variable bind them as
+ *  top level properties.
+ * </p>
+ * 
+ * <p>
  *  The following sample configuration shows how to use a
  *  subclass of {@link AbstractUrlCommandController} to
  *  bind values from the url metnioned earlier to a 
@@ -68,6 +92,24 @@ import org.springframework.web.bind.ServletRequestParameterPropertyValues;
 public class UrlPropertyValues 
     extends MutablePropertyValues {
     
+    /**
+     * Matrix parameters aren't parsed, they stay part of the
+     * segment's value and aren't bound on their own.
+     */
+    public static final int MATRIX_IGNORED      = 0;
+    
+    /**
+     * Matrix parameters are dropped from the segment's value
+     * and bound as top level properties.
+     */
+    public static final int MATRIX_TOP_LEVEL    = 1;
+    
+    /**
+     * Matrix parameters are dropped from the segment's value
+     * and bound as nested properties of the segment's variable.
+     */
+    public static final int MATRIX_NESTED       = 2;
+    
     /**
      * Create new UrlPropertyValues using no prefix
      * (and hence, no prefix separator).
@@ -75,7 +117,7 @@ public class UrlPropertyValues
      * @param url the url
      */
     public UrlPropertyValues(String urlPattern, String url) {
-        this(urlPattern,  url, null);
+        this(UrlPattern.compile(urlPattern), url, null);
     }
 
     /**
@@ -89,7 +131,7 @@ public class UrlPropertyValues
      */
     public UrlPropertyValues(
         String urlPattern, String url, String prefix) {
-        this(urlPattern, url, prefix,
+        this(UrlPattern.compile(urlPattern), url, prefix,
             ServletRequestParameterPropertyValues.DEFAULT_PREFIX_SEPARATOR);
     }
 
@@ -105,39 +147,209 @@ public class UrlPropertyValues
      */
     public UrlPropertyValues(
         String urlPattern, String url, String prefix, String prefixSeparator) {
-        super(parseParameters(urlPattern, url, prefix, prefixSeparator));
+        this(UrlPattern.compile(urlPattern), url, prefix, prefixSeparator);
     }
     
     /**
-     * Parses the given url using the given pattern removing
-     * the given prefix and prefix separator from the begining
-     * of any paramter names returning a map of name->value pairs.
-     * @param urlPattern the url pattern
-     * @param url the url to parse
-     * @param prefix the param name prefix
-     * @param prefixSeparator the prefix separator
-     * @return a map of parameters
+     * Create new UrlPropertyValues using a compiled url pattern
+     * and no prefix (and hence, no prefix separator).
+     * @param urlPattern the compiled url pattern
+     * @param url the url
      */
-    private static Map<String, String> parseParameters(
-        String urlPattern, String url, String prefix, String prefixSeparator) {
-        
-        // get the parameter names and values
-        String[] paramNames     = urlPattern.split("/");
-        String[] paramValues    = url.split("/");
-        
-        // get the prefix
-        prefix = (prefix != null) ? prefix + prefixSeparator : "";
-        
-        // build a map of the values
-        Map<String, String> params = new HashMap<String, String>();
-        for (int i=0; i<paramNames.length && i<paramValues.length; i++) {
-            if (prefix.equals("") || paramNames[i].startsWith(prefix)) {
-                params.put(paramNames[i].substring(prefix.length()), paramValues[i]);
+    public UrlPropertyValues(UrlPattern urlPattern, String url) {
+        this(urlPattern, url, null);
+    }
+
+    /**
+     * Create new UrlPropertyValues using a compiled url pattern,
+     * the given prefix and the default prefix separator (the
+     * underscore character "_").
+     * @param urlPattern the compiled url pattern
+     * @param url the url
+     * @param prefix the prefix for parameters (the full prefix will
+     * consist of this plus the separator)
+     */
+    public UrlPropertyValues(
+        UrlPattern urlPattern, String url, String prefix) {
+        this(urlPattern, url, prefix,
+            ServletRequestParameterPropertyValues.DEFAULT_PREFIX_SEPARATOR);
+    }
+
+    /**
+     * Create new UrlPropertyValues using a compiled url pattern
+     * supplying both prefix and prefix separator.
+     * @param urlPattern the compiled url pattern
+     * @param url the url
+     * @param prefix the prefix for parameters (the full prefix will
+     * consist of this plus the separator)
+     * @param prefixSeparator separator delimiting prefix (e.g. "spring")
+     * and the rest of the parameter name ("param1", "param2")
+     */
+    public UrlPropertyValues(
+        UrlPattern urlPattern, String url, String prefix, String prefixSeparator) {
+        this(urlPattern, url, 0, (prefix != null) ? prefix + prefixSeparator : null);
+    }
+    
+    /**
+     * Create new UrlPropertyValues from the part of the given url
+     * starting at the given offset, which saves having to create
+     * a substring of the url (ie: to remove the context path).
+     * @param urlPattern the compiled url pattern
+     * @param url the url
+     * @param offset the index in the url that the pattern starts at
+     * @param fullPrefix the prefix for parameters including the
+     * separator, or null for none
+     */
+    public UrlPropertyValues(
+        UrlPattern urlPattern, String url, int offset, String fullPrefix) {
+        this(urlPattern.match(url, offset), fullPrefix);
+    }
+    
+    /**
+     * Create new UrlPropertyValues from a url that has already
+     * been matched, without parsing the url again.
+     * @param match the match
+     * @param fullPrefix the prefix for parameters including the
+     * separator, or null for none
+     */
+    public UrlPropertyValues(UrlMatch match, String fullPrefix) {
+        this(match, fullPrefix, null);
+    }
+    
+    /**
+     * Create new UrlPropertyValues from a url that has already
+     * been matched, percent-decoding the values.
+     * @param match the match
+     * @param fullPrefix the prefix for parameters including the
+     * separator, or null for none
+     * @param charset the charset to decode the values with,
+     * or null to bind them as they are
+     */
+    public UrlPropertyValues(UrlMatch match, String fullPrefix, Charset charset) {
+        this(match, fullPrefix, charset, MATRIX_IGNORED);
+    }
+    
+    /**
+     * Create new UrlPropertyValues from a url that has already
+     * been matched, percent-decoding the values and binding
+     * matrix parameters according to the given mode.
+     * @param match the match
+     * @param fullPrefix the prefix for parameters including the
+     * separator, or null for none
+     * @param charset the charset to decode the values with,
+     * or null to bind them as they are
+     * @param matrixMode one of {@link #MATRIX_IGNORED},
+     * {@link #MATRIX_TOP_LEVEL} or {@link #MATRIX_NESTED}
+     */
+    public UrlPropertyValues(UrlMatch match, String fullPrefix, Charset charset, int matrixMode) {
+        addPropertyValues(match, fullPrefix, charset, matrixMode);
+    }
+    
+    /**
+     * Adds a {@link PropertyValue} for each bound segment of the
+     * given match, removing the given prefix from the begining of
+     * the paramter names.  Only the values of segments that are
+     * bound are extracted from the url.  Matrix parameters are
+     * never part of a value, they're split off of each segment (and
+     * of each <code>/</code> separated piece of a tail) and bound
+     * according to the given mode.
+     * @param match the match
+     * @param fullPrefix the param name prefix including the separator
+     * @param charset the charset to decode the values with, or null
+     * @param matrixMode how matrix parameters are bound
+     */
+    private void addPropertyValues(
+        UrlMatch match, String fullPrefix, Charset charset, int matrixMode) {
+        String[] paramNames = match.getPattern().getPropertyNames(fullPrefix);
+        String url = match.getUrl();
+        for (int i=0; i<paramNames.length && i<match.getSegmentCount(); i++) {
+            int start = match.getSegmentStart(i);
+            int end = match.getSegmentEnd(i);
+            boolean tail = match.getPattern().isTail(i);
+            
+            // the value as it is, or without the parameters
+            if (matrixMode==MATRIX_IGNORED) {
+                if (paramNames[i]!=null) {
+                    addPropertyValue(new PropertyValue(paramNames[i], match.getSegmentValue(i, charset)));
+                }
+                continue;
+            }
+            if (paramNames[i]!=null) {
+                addPropertyValue(new PropertyValue(paramNames[i], match.getSegmentPathValue(i, charset)));
+            }
+            
+            // then the parameters of each piece
+            String nestedPrefix = (matrixMode==MATRIX_NESTED && paramNames[i]!=null)
+                ? paramNames[i]+"." : null;
+            for (int pieceStart=start; pieceStart<=end;) {
+                int pieceEnd = tail ? indexOf(url, '/', pieceStart, end) : end;
+                addMatrixParameters(url, UrlMatch.indexOfMatrix(url, pieceStart, pieceEnd),
+                    pieceEnd, fullPrefix, nestedPrefix, charset);
+                pieceStart = pieceEnd+1;
             }
         }
-        
-        // return map
-        return params;
+    }
+    
+    /**
+     * Adds the matrix parameters in the given part of the url.
+     * @param url the url
+     * @param start the index of the first <code>;</code>
+     * @param end the end of the parameters
+     * @param fullPrefix the param name prefix including the separator
+     * @param nestedPrefix the prefix of nested parameters, or null
+     * to bind them as top level properties
+     * @param charset the charset, or null to not decode
+     */
+    private void addMatrixParameters(
+        String url, int start, int end, String fullPrefix, String nestedPrefix, Charset charset) {
+        for (int pos=start+1; pos<end;) {
+            int paramEnd = indexOf(url, ';', pos, end);
+            int eq = indexOf(url, '=', pos, paramEnd);
+            String key = decode(url, pos, eq, charset);
+            if (key.length()>0) {
+                String value = (eq<paramEnd) ? decode(url, eq+1, paramEnd, charset) : "";
+                if (nestedPrefix!=null) {
+                    addPropertyValue(new PropertyValue(nestedPrefix+key, value));
+                } else if (fullPrefix==null || fullPrefix.length()==0) {
+                    addPropertyValue(new PropertyValue(key, value));
+                } else if (key.startsWith(fullPrefix)) {
+                    addPropertyValue(new PropertyValue(key.substring(fullPrefix.length()), value));
+                }
+            }
+            pos = paramEnd+1;
+        }
+    }
+    
+    /**
+     * Returns the index of the given character in
+     * the given part of the url.
+     * @param url the url
+     * @param c the character
+     * @param start the index to start at
+     * @param end the index to end at
+     * @return the index, or end if it isn't there
+     */
+    private static int indexOf(String url, char c, int start, int end) {
+        for (int i=start; i<end; i++) {
+            if (url.charAt(i)==c) {
+                return i;
+            }
+        }
+        return end;
+    }
+    
+    /**
+     * Decodes the given part of the url.
+     * @param url the url
+     * @param start the start index
+     * @param end the end index
+     * @param charset the charset, or null to not decode
+     * @return the value
+     */
+    private static String decode(String url, int start, int end, Charset charset) {
+        return (charset!=null)
+            ? UrlMatch.decode(url, start, end, charset)
+            : url.substring(start, end);
     }
     
 }
@@ -0,0 +1,118 @@
+package com.googlecode.webmvc.web.servlet.generics.handler;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.BeansException;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.AbstractHandlerMapping;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController;
+import com.googlecode.webmvc.web.servlet.generics.support.UrlPatternDefinitions;
+
+/**
+ * <p>
+ *  A {@link HandlerMapping} that routes requests to the
+ *  {@link AbstractUrlCommandController}s in the application
+ *  context by their url pattern, so that the pattern only
+ *  has to be configured once.  The patterns are kept in a
+ *  radix tree keyed by segment, so finding the controller
+ *  doesn't depend on how many controllers there are, and
+ *  literal segments win over variables, ie:
+ *  <code>/person/new</code> wins over <code>/person/{id}</code>.
+ * </p>
+ *
+ * <p>
+ *  Urls are matched without the context path, the same
+ *  way {@link com.googlecode.webmvc.web.servlet.generics.bind.UrlHttpServletRequestDataBinder}
+ *  binds them.  The match is stored in the request (see
+ *  {@link UrlMatch}) so that the controller's binder doesn't
+ *  have to parse the url again.
+ * </p>
+ *
+ * <p>
+ *  Only patterns that use braces are routed.  Every segment of a
+ *  legacy pattern without braces binds a property, so it would
+ *  take every url with as many segments from the other handler
+ *  mappings, and those controllers are left to them.
+ * </p>
+ *
+ * <p>
+ *  The folowing sample configuration would route
+ *  <code>/person/{id}</code> to the personController:
+ *  <pre>
+ *      <code>
+ *      &lt;!-- routing --&gt;
+ *      &lt;bean id="urlPatternHandlerMapping"
+ *          class="com.googlecode.webmvc.web.servlet.generics.handler.UrlPatternHandlerMapping"&gt;
+ *          &lt;property name="order"              value="0" /&gt;
+ *      &lt;/bean&gt;
+ *
+ *      &lt;bean id="personController" class="com.example.PersonController"&gt;
+ *          &lt;property name="urlPattern"         value="/person/{id}" /&gt;
+ *      &lt;/bean&gt;
+ *      </code>
+ *  </pre>
+ * </p>
+ */
+public class UrlPatternHandlerMapping
+    extends AbstractHandlerMapping {
+
+    private UrlPatternTree<String> tree = new UrlPatternTree<String>();
+
+    /**
+     * Finds the controllers and adds their patterns to the tree.
+     * The bean names are mapped rather than the beans themselves
+     * so that prototype controllers are created per request, and
+     * the patterns are read from the bean definitions, see
+     * {@link UrlPatternDefinitions}.
+     * @throws BeansException on error
+     */
+    @Override
+    protected void initApplicationContext()
+        throws BeansException {
+        super.initApplicationContext();
+
+        // build the tree
+        UrlPatternTree<String> newTree = new UrlPatternTree<String>();
+        Map<String, UrlPattern> patterns = UrlPatternDefinitions.findUrlPatterns(getApplicationContext());
+        for (Map.Entry<String, UrlPattern> entry : patterns.entrySet()) {
+            if (!entry.getValue().isTemplate()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Skipped legacy url pattern ["+entry.getValue()+"] of handler ["+entry.getKey()+"]");
+                }
+                continue;
+            }
+            newTree.add(entry.getValue(), entry.getKey());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Mapped url pattern ["+entry.getValue()+"] onto handler ["+entry.getKey()+"]");
+            }
+        }
+        this.tree = newTree;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getHandlerInternal(HttpServletRequest request)
+        throws Exception {
+
+        // get the url and skip the context
+        String url = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        int offset = url.startsWith(contextPath) ? contextPath.length() : 0;
+
+        // match it
+        UrlMatch match = tree.match(url, offset);
+        if (match==null) {
+            return null;
+        }
+        match.store(request);
+        return tree.getHandler(match);
+    }
+
+}
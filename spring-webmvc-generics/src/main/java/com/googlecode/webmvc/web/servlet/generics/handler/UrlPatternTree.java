@@ -0,0 +1,282 @@
+package com.googlecode.webmvc.web.servlet.generics.handler;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+
+/**
+ * <p>
+ *  A radix tree of {@link UrlPattern}s keyed by segment.  Literal
+ *  segments are tried before variable segments at every level, so
+ *  <code>/person/new</code> wins over <code>/person/{id}</code>,
+ *  then constrained variables (ie: <code>{id:\d+}</code>) in the
+ *  order they were added, then unconstrained ones and finally
+ *  <code>{path*}</code> tails.
+ *  Matching a url takes time proportional to its length (plus any
+ *  backtracking out of literal branches that turn out not to match)
+ *  regardless of how many patterns are in the tree.
+ * </p>
+ *
+ * <p>
+ *  The tree is built once and is safe for concurrent matching
+ *  afterwards.
+ * </p>
+ *
+ * @param <H> the type of the handlers
+ */
+final class UrlPatternTree<H> {
+
+    private final Node<H> root = new Node<H>();
+    private final Map<UrlPattern, H> handlers = new IdentityHashMap<UrlPattern, H>();
+    private int depth;
+
+    /**
+     * Adds a pattern to the tree.
+     * @param pattern the pattern
+     * @param handler the handler for the pattern
+     * @throws IllegalStateException if an equivalent pattern
+     * has already been added
+     */
+    void add(UrlPattern pattern, H handler) {
+        Node<H> node = root;
+        for (int i=0; i<pattern.getSegmentCount(); i++) {
+            if (pattern.isLiteral(i)) {
+                node = node.literalChild(pattern.getSegment(i));
+            } else if (pattern.isTail(i)) {
+                node = node.tailChild();
+            } else if (pattern.getConstraint(i)!=null) {
+                node = node.constrainedChild(pattern, i);
+            } else {
+                node = node.variableChild();
+            }
+        }
+        if (node.pattern!=null) {
+            throw new IllegalStateException(
+                "Cannot map "+handler+" to "+pattern+": "+node.handler
+                +" is already mapped to "+node.pattern);
+        }
+        node.pattern = pattern;
+        node.handler = handler;
+        handlers.put(pattern, handler);
+        depth = Math.max(depth, pattern.getSegmentCount());
+    }
+
+    /**
+     * Matches the given url.
+     * @param url the url
+     * @param offset the index in the url to start at
+     * @return the match, or null if no pattern matches
+     */
+    UrlMatch match(String url, int offset) {
+        int[] bounds = new int[2*depth];
+        Node<H> node = match(root, url, offset, 0, bounds);
+        return (node!=null)
+            ? new UrlMatch(node.pattern, url, offset, bounds, node.pattern.getSegmentCount())
+            : null;
+    }
+
+    /**
+     * Returns the handler of the pattern of the given match.
+     * @param match the match
+     * @return the handler
+     */
+    H getHandler(UrlMatch match) {
+        return handlers.get(match.getPattern());
+    }
+
+    /**
+     * Matches the rest of the url, starting at the given
+     * position, against the given node.
+     * @param node the node
+     * @param url the url
+     * @param pos the position in the url
+     * @param segment the index of the segment at the position
+     * @param bounds the segment bounds matched so far
+     * @return the node of the matching pattern, or null
+     */
+    private static <H> Node<H> match(Node<H> node, String url, int pos, int segment, int[] bounds) {
+
+        // end of the url, an empty tail still matches
+        if (isTrailing(url, pos)) {
+            if (node.pattern==null && node.tail!=null && segment*2<bounds.length) {
+                int end = Math.min(pos, url.length());
+                bounds[2*segment]   = end;
+                bounds[2*segment+1] = end;
+                return node.tail;
+            }
+            return (node.pattern!=null) ? node : null;
+        }
+        if (segment*2>=bounds.length) {
+            return null;
+        }
+
+        // find the segment
+        int end = url.indexOf('/', pos);
+        if (end==-1) {
+            end = url.length();
+        }
+
+        // literals first, without any matrix parameters
+        int valueEnd = UrlMatch.indexOfMatrix(url, pos, end);
+        for (int i=0; i<node.literals.length; i++) {
+            String literal = node.literals[i];
+            if (literal.length()==valueEnd-pos && url.regionMatches(pos, literal, 0, literal.length())) {
+                Node<H> found = match(node.literalChildren[i], url, end+1, segment+1, bounds);
+                if (found!=null) {
+                    bounds[2*segment]   = pos;
+                    bounds[2*segment+1] = end;
+                    return found;
+                }
+            }
+        }
+
+        // then constrained variables
+        for (int i=0; i<node.constrained.length; i++) {
+            Node<H> child = node.constrained[i];
+            if (child.owner.matches(child.index, url, pos, end)) {
+                Node<H> found = match(child, url, end+1, segment+1, bounds);
+                if (found!=null) {
+                    bounds[2*segment]   = pos;
+                    bounds[2*segment+1] = end;
+                    return found;
+                }
+            }
+        }
+
+        // then variables
+        if (node.variable!=null && end>pos) {
+            Node<H> found = match(node.variable, url, end+1, segment+1, bounds);
+            if (found!=null) {
+                bounds[2*segment]   = pos;
+                bounds[2*segment+1] = end;
+                return found;
+            }
+        }
+
+        // then the rest of the url
+        if (node.tail!=null) {
+            end = url.length();
+            while (url.charAt(end-1)=='/') {
+                end--;
+            }
+            bounds[2*segment]   = pos;
+            bounds[2*segment+1] = end;
+            return node.tail;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether or not the url has no more segments
+     * starting at the given index.
+     * @param url the url
+     * @param index the index
+     * @return true if there are no more segments
+     */
+    private static boolean isTrailing(String url, int index) {
+        for (int i=index; i<url.length(); i++) {
+            if (url.charAt(i)!='/') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A node in the tree.
+     * @param <H> the type of the handlers
+     */
+    private static final class Node<H> {
+
+        @SuppressWarnings("unchecked")
+        private Node<H>[] literalChildren = new Node[0];
+        private String[] literals = new String[0];
+        @SuppressWarnings("unchecked")
+        private Node<H>[] constrained = new Node[0];
+        private Node<H> variable;
+        private Node<H> tail;
+        private UrlPattern pattern;
+        private H handler;
+
+        // the segment of a constrained variable node
+        private UrlPattern owner;
+        private int index;
+
+        /**
+         * Returns the child for the given literal, creating it
+         * if it doesn't exist.
+         * @param literal the literal
+         * @return the child
+         */
+        @SuppressWarnings("unchecked")
+        Node<H> literalChild(String literal) {
+            for (int i=0; i<literals.length; i++) {
+                if (literals[i].equals(literal)) {
+                    return literalChildren[i];
+                }
+            }
+            String[] newLiterals = new String[literals.length+1];
+            Node<H>[] newChildren = new Node[literals.length+1];
+            System.arraycopy(literals, 0, newLiterals, 0, literals.length);
+            System.arraycopy(literalChildren, 0, newChildren, 0, literals.length);
+            newLiterals[literals.length] = literal;
+            newChildren[literals.length] = new Node<H>();
+            literals = newLiterals;
+            literalChildren = newChildren;
+            return newChildren[literals.length-1];
+        }
+
+        /**
+         * Returns the child for the constrained segment at the
+         * given index of the given pattern, creating it if there
+         * isn't one with the same constraint.
+         * @param segmentPattern the pattern
+         * @param segmentIndex the index of the segment
+         * @return the child
+         */
+        @SuppressWarnings("unchecked")
+        Node<H> constrainedChild(UrlPattern segmentPattern, int segmentIndex) {
+            String regex = segmentPattern.getConstraint(segmentIndex).pattern();
+            for (Node<H> child : constrained) {
+                if (child.owner.getConstraint(child.index).pattern().equals(regex)) {
+                    return child;
+                }
+            }
+            Node<H> child = new Node<H>();
+            child.owner = segmentPattern;
+            child.index = segmentIndex;
+            Node<H>[] newConstrained = new Node[constrained.length+1];
+            System.arraycopy(constrained, 0, newConstrained, 0, constrained.length);
+            newConstrained[constrained.length] = child;
+            constrained = newConstrained;
+            return child;
+        }
+
+        /**
+         * Returns the tail child, creating it
+         * if it doesn't exist.
+         * @return the child
+         */
+        Node<H> tailChild() {
+            if (tail==null) {
+                tail = new Node<H>();
+            }
+            return tail;
+        }
+
+        /**
+         * Returns the variable child, creating it
+         * if it doesn't exist.
+         * @return the child
+         */
+        Node<H> variableChild() {
+            if (variable==null) {
+                variable = new Node<H>();
+            }
+            return variable;
+        }
+    }
+
+}
@@ -10,6 +10,9 @@ import org.springframework.validation.BindException;
 import org.springframework.web.bind.ServletRequestDataBinder;
 import org.springframework.web.servlet.ModelAndView;
 
+import com.googlecode.webmvc.web.servlet.generics.bind.FieldMatcher;
+import com.googlecode.webmvc.web.servlet.generics.bind.ParameterMapServletRequestDataBinder;
+import com.googlecode.webmvc.web.servlet.generics.bind.ServletRequestDataBinderTemplate;
 import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
 
 /**
@@ -44,6 +47,12 @@ public abstract class AbstractCommandController<T>
     
     private String defaultView;
     private String errorView;
+    private boolean reuseBinderTemplates = false;
+    private boolean bindParameterMap = false;
+    private volatile ServletRequestDataBinderTemplate binderTemplate;
+    private String[] allowedFields;
+    private String[] disallowedFields;
+    private FieldMatcher fieldMatcher;
     
     /**
      * Creates the BaseCommandController.
@@ -207,7 +216,85 @@ public abstract class AbstractCommandController<T>
     protected ServletRequestDataBinder createBinder(
         T command, HttpServletRequest request) 
         throws Exception {
-        return super.createBinder(request, command);
+        ServletRequestDataBinder binder = ControllerBinders.createBinder(
+            command, getCommandName(), fieldMatcher, bindParameterMap);
+        configureBinder(binder, request);
+        ControllerBinders.registerGenericEditors(binder, getClass(), AbstractCommandController.class);
+        return binder;
+    }
+
+    /**
+     * @return the precompiled allowed fields, or null if
+     * none were set
+     */
+    protected FieldMatcher getFieldMatcher() {
+        return fieldMatcher;
+    }
+
+    /**
+     * @return whether or not request parameters are bound
+     * straight from the request's parameter map
+     */
+    protected boolean isBindParameterMap() {
+        return bindParameterMap;
+    }
+
+    /**
+     * Configures the given binder by calling {@link #prepareBinder(ServletRequestDataBinder)}
+     * and {@link #initBinder(HttpServletRequest, ServletRequestDataBinder)},
+     * or by applying the configuration they left the first time
+     * they were called if it could be recorded completely, see
+     * {@link #setReuseBinderTemplates(boolean)}.
+     * @param binder the binder
+     * @param request the request
+     * @throws Exception on error
+     */
+    protected void configureBinder(ServletRequestDataBinder binder, HttpServletRequest request)
+        throws Exception {
+        if (!reuseBinderTemplates) {
+            prepareBinder(binder);
+            initBinder(request, binder);
+            return;
+        }
+        ServletRequestDataBinderTemplate template = binderTemplate;
+        if (template==null) {
+            ServletRequestDataBinderTemplate.Recorder recorder
+                = new ServletRequestDataBinderTemplate.Recorder(getCommandName());
+            prepareBinder(recorder);
+            initBinder(request, recorder);
+            template = recorder.getTemplate();
+            binderTemplate = template;
+            if (!template.isComplete() && logger.isInfoEnabled()) {
+                logger.info("Binder of ["+getCommandName()+"] registers editors that "
+                    +"aren't SharedPropertyEditors, it is configured for every request");
+            }
+        }
+        if (template.isComplete()) {
+            template.applyTo(binder);
+        } else {
+            prepareBinder(binder);
+            initBinder(request, binder);
+        }
+    }
+
+    /**
+     * Sets the fields that may be bound,
+     * {@see BaseCommandController#setAllowedFields(String[])}.
+     * @param allowedFields the allowedFields to set
+     */
+    public void setAllowedFields(String[] allowedFields) {
+        this.allowedFields = allowedFields;
+        this.fieldMatcher = FieldMatcher.compile(this.allowedFields, this.disallowedFields);
+    }
+
+    /**
+     * Sets the fields that may not be bound,
+     * {@see #setAllowedFields(String[])}.
+     * @param disallowedFields the disallowedFields to set
+     */
+    public void setDisallowedFields(String[] disallowedFields) {
+        this.disallowedFields = disallowedFields;
+        this.fieldMatcher = FieldMatcher.compile(this.allowedFields, this.disallowedFields);
     }
 
     /**
@@ -255,6 +342,39 @@ public abstract class AbstractCommandController<T>
         return super.suppressValidation(request, command);
     }
 
+    /**
+     * Sets whether or not the configuration that
+     * {@link #prepareBinder(ServletRequestDataBinder)} and
+     * {@link #initBinder(HttpServletRequest, ServletRequestDataBinder)}
+     * leave on a binder is recorded once and applied to the binders
+     * of later requests, instead of calling them (and creating new
+     * custom editors) for every request.  Only turn this on when
+     * <code>initBinder</code> doesn't depend on the request, since
+     * it only sees the first one.  The editors are shared by
+     * concurrent requests, so they're only reused when all of them
+     * are {@link com.googlecode.webmvc.web.servlet.generics.bind.SharedPropertyEditor}s,
+     * otherwise the binder is still configured for every request.
+     * The default is false.
+     * @param reuseBinderTemplates the reuseBinderTemplates to set
+     */
+    public void setReuseBinderTemplates(boolean reuseBinderTemplates) {
+        this.reuseBinderTemplates = reuseBinderTemplates;
+        this.binderTemplate = null;
+    }
+
+    /**
+     * Sets whether or not request parameters are bound straight from
+     * the request's parameter map (see
+     * {@link ParameterMapServletRequestDataBinder}) rather than from
+     * a sorted copy of them.  It has no effect when allowed or disallowed
+     * fields are set, since only the allowed parameters are collected
+     * then, without copying the others.  The default is false.
+     * @param bindParameterMap the bindParameterMap to set
+     */
+    public void setBindParameterMap(boolean bindParameterMap) {
+        this.bindParameterMap = bindParameterMap;
+    }
+
     /**
      * @return the defaultView
      */
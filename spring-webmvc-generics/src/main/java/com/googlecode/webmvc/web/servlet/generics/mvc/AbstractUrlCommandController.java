@@ -1,11 +1,16 @@
 package com.googlecode.webmvc.web.servlet.generics.mvc;
 
 import javax.servlet.http.HttpServletRequest;
-
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.servlet.ModelAndView;
 
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlBindingPlan;
 import com.googlecode.webmvc.web.servlet.generics.bind.UrlHttpServletRequestDataBinder;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPropertyValues;
 import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
 
 /**
@@ -16,12 +21,26 @@ import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
  *  see {@link UrlPropertyValues}.
  * </p>
  *
+ * <p>
+ *  Requests whose url doesn't match a pattern that uses braces
+ *  (see {@link UrlPattern#matchStrictly(String, int)}) are
+ *  answered with a 404 before the command or binder are created.
+ *  Legacy patterns without braces match any url as before,
+ *  segments missing from the url aren't bound and extra
+ *  segments are ignored.
+ * </p>
+ *
  * @param <T>
  */
 public abstract class AbstractUrlCommandController<T> 
     extends AbstractCommandController<T> {
 
-    private String urlPattern;
+    private UrlPattern urlPattern;
+    private boolean bindParameters  = false;
+    private boolean urlPrecedence   = true;
+    private boolean directBinding   = true;
+    private String urlEncoding;
+    private int matrixParameterMode = UrlPropertyValues.MATRIX_IGNORED;
     
     /**
      * Creates the BaseCommandController.
@@ -31,6 +50,32 @@ public abstract class AbstractUrlCommandController<T>
             this.getClass(), AbstractUrlCommandController.class, "T", true));
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ModelAndView handleRequestInternal(
+        HttpServletRequest request, HttpServletResponse response)
+        throws Exception {
+
+        // match the url, unless routing already did
+        String url = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        int offset = url.startsWith(contextPath) ? contextPath.length() : 0;
+        UrlMatch match = UrlMatch.get(request);
+        if (urlPattern!=null && (match==null || !match.isMatchOf(urlPattern, url, offset))) {
+            match = (urlPattern.isTemplate())
+                ? urlPattern.matchStrictly(url, offset)
+                : urlPattern.match(url, offset);
+            if (match==null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return null;
+            }
+            match.store(request);
+        }
+        return super.handleRequestInternal(request, response);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -38,19 +83,89 @@ public abstract class AbstractUrlCommandController<T>
     protected ServletRequestDataBinder createBinder(
         T command, HttpServletRequest request) 
         throws Exception {
-        ServletRequestDataBinder binder = new UrlHttpServletRequestDataBinder(
+        UrlHttpServletRequestDataBinder binder = new UrlHttpServletRequestDataBinder(
             command, urlPattern, getCommandName());
-        prepareBinder(binder);
-        initBinder(request, binder);
+        binder.setBindParameters(bindParameters);
+        binder.setUrlPrecedence(urlPrecedence);
+        binder.setUrlEncoding(urlEncoding);
+        binder.setMatrixParameterMode(matrixParameterMode);
+        binder.setFieldMatcher(getFieldMatcher());
+        binder.setBindParameterMap(isBindParameterMap());
+        if (directBinding && urlPattern!=null) {
+            binder.setBindingPlan(UrlBindingPlan.forClass(command.getClass(), urlPattern));
+        }
+        configureBinder(binder, request);
+        ControllerBinders.registerGenericEditors(binder, getClass(), AbstractCommandController.class);
         return binder;
     }
 
+    /**
+     * Returns the url values of the given request, as they were
+     * bound to the command, for use in <code>onBind</code> hooks
+     * and the like without parsing the url again.
+     * @param request the request
+     * @return the match, or null if the request hasn't been bound
+     */
+    protected UrlMatch getUrlMatch(HttpServletRequest request) {
+        return UrlMatch.get(request);
+    }
+
     /**
      * {@see UrlPropertyValues}.
      * @param urlPattern the urlPattern to set
      */
     public void setUrlPattern(String urlPattern) {
-        this.urlPattern = urlPattern;
+        this.urlPattern = UrlPattern.compile(urlPattern);
+    }
+
+    /**
+     * {@see UrlHttpServletRequestDataBinder#setBindParameters(boolean)}.
+     * @param bindParameters the bindParameters to set
+     */
+    public void setBindParameters(boolean bindParameters) {
+        this.bindParameters = bindParameters;
+    }
+
+    /**
+     * {@see UrlHttpServletRequestDataBinder#setUrlPrecedence(boolean)}.
+     * @param urlPrecedence the urlPrecedence to set
+     */
+    public void setUrlPrecedence(boolean urlPrecedence) {
+        this.urlPrecedence = urlPrecedence;
+    }
+
+    /**
+     * {@see UrlHttpServletRequestDataBinder#setUrlEncoding(String)}.
+     * @param urlEncoding the urlEncoding to set
+     */
+    public void setUrlEncoding(String urlEncoding) {
+        this.urlEncoding = urlEncoding;
+    }
+
+    /**
+     * {@see UrlHttpServletRequestDataBinder#setMatrixParameterMode(int)}.
+     * @param matrixParameterMode the matrixParameterMode to set
+     */
+    public void setMatrixParameterMode(int matrixParameterMode) {
+        this.matrixParameterMode = matrixParameterMode;
+    }
+
+    /**
+     * Sets whether or not url values are bound straight to the
+     * command's setters when possible, see {@link UrlBindingPlan}.
+     * The default is true.
+     * @param directBinding the directBinding to set
+     */
+    public void setDirectBinding(boolean directBinding) {
+        this.directBinding = directBinding;
+    }
+
+    /**
+     * Returns the compiled url pattern.
+     * @return the urlPattern, or null if none was set
+     */
+    public UrlPattern getCompiledUrlPattern() {
+        return urlPattern;
     }
     
 }
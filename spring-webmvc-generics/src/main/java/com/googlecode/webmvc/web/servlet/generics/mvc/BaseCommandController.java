@@ -8,6 +8,9 @@ import org.springframework.validation.BindException;
 import org.springframework.web.bind.ServletRequestDataBinder;
 import org.springframework.web.servlet.ModelAndView;
 
+import com.googlecode.webmvc.web.servlet.generics.bind.FieldMatcher;
+import com.googlecode.webmvc.web.servlet.generics.bind.ParameterMapServletRequestDataBinder;
+import com.googlecode.webmvc.web.servlet.generics.bind.ServletRequestDataBinderTemplate;
 import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
 
 /** 
@@ -30,6 +33,12 @@ public abstract class BaseCommandController<T>
     extends org.springframework.web.servlet.mvc.BaseCommandController {
 
     private String defaultView;
+    private boolean reuseBinderTemplates = false;
+    private boolean bindParameterMap = false;
+    private volatile ServletRequestDataBinderTemplate binderTemplate;
+    private String[] allowedFields;
+    private String[] disallowedFields;
+    private FieldMatcher fieldMatcher;
     
     /**
      * Creates the BaseCommandController.
@@ -140,7 +149,72 @@ public abstract class BaseCommandController<T>
     protected ServletRequestDataBinder createBinder(
         T command, HttpServletRequest request) 
         throws Exception {
-        return super.createBinder(request, command);
+        ServletRequestDataBinder binder = ControllerBinders.createBinder(
+            command, getCommandName(), fieldMatcher, bindParameterMap);
+        configureBinder(binder, request);
+        ControllerBinders.registerGenericEditors(binder, getClass(), BaseCommandController.class);
+        return binder;
+    }
+
+    /**
+     * Configures the given binder by calling {@link #prepareBinder(ServletRequestDataBinder)}
+     * and {@link #initBinder(HttpServletRequest, ServletRequestDataBinder)},
+     * or by applying the configuration they left the first time
+     * they were called if it could be recorded completely, see
+     * {@link #setReuseBinderTemplates(boolean)}.
+     * @param binder the binder
+     * @param request the request
+     * @throws Exception on error
+     */
+    protected void configureBinder(ServletRequestDataBinder binder, HttpServletRequest request)
+        throws Exception {
+        if (!reuseBinderTemplates) {
+            prepareBinder(binder);
+            initBinder(request, binder);
+            return;
+        }
+        ServletRequestDataBinderTemplate template = binderTemplate;
+        if (template==null) {
+            ServletRequestDataBinderTemplate.Recorder recorder
+                = new ServletRequestDataBinderTemplate.Recorder(getCommandName());
+            prepareBinder(recorder);
+            initBinder(request, recorder);
+            template = recorder.getTemplate();
+            binderTemplate = template;
+            if (!template.isComplete() && logger.isInfoEnabled()) {
+                logger.info("Binder of ["+getCommandName()+"] registers editors that "
+                    +"aren't SharedPropertyEditors, it is configured for every request");
+            }
+        }
+        if (template.isComplete()) {
+            template.applyTo(binder);
+        } else {
+            prepareBinder(binder);
+            initBinder(request, binder);
+        }
+    }
+
+    /**
+     * Sets the fields that may be bound, using the same patterns as
+     * {@link org.springframework.validation.DataBinder#setAllowedFields(String[])}.
+     * Unlike setting them in <code>initBinder</code> the patterns are
+     * compiled once (see {@link FieldMatcher}) and request parameters
+     * that aren't allowed are never collected.
+     * @param allowedFields the allowedFields to set
+     */
+    public void setAllowedFields(String[] allowedFields) {
+        this.allowedFields = allowedFields;
+        this.fieldMatcher = FieldMatcher.compile(this.allowedFields, this.disallowedFields);
+    }
+
+    /**
+     * Sets the fields that may not be bound,
+     * {@see #setAllowedFields(String[])}.
+     * @param disallowedFields the disallowedFields to set
+     */
+    public void setDisallowedFields(String[] disallowedFields) {
+        this.disallowedFields = disallowedFields;
+        this.fieldMatcher = FieldMatcher.compile(this.allowedFields, this.disallowedFields);
     }
 
     /**
@@ -188,6 +262,39 @@ public abstract class BaseCommandController<T>
         return super.suppressValidation(request, command);
     }
 
+    /**
+     * Sets whether or not the configuration that
+     * {@link #prepareBinder(ServletRequestDataBinder)} and
+     * {@link #initBinder(HttpServletRequest, ServletRequestDataBinder)}
+     * leave on a binder is recorded once and applied to the binders
+     * of later requests, instead of calling them (and creating new
+     * custom editors) for every request.  Only turn this on when
+     * <code>initBinder</code> doesn't depend on the request, since
+     * it only sees the first one.  The editors are shared by
+     * concurrent requests, so they're only reused when all of them
+     * are {@link com.googlecode.webmvc.web.servlet.generics.bind.SharedPropertyEditor}s,
+     * otherwise the binder is still configured for every request.
+     * The default is false.
+     * @param reuseBinderTemplates the reuseBinderTemplates to set
+     */
+    public void setReuseBinderTemplates(boolean reuseBinderTemplates) {
+        this.reuseBinderTemplates = reuseBinderTemplates;
+        this.binderTemplate = null;
+    }
+
+    /**
+     * Sets whether or not request parameters are bound straight from
+     * the request's parameter map (see
+     * {@link ParameterMapServletRequestDataBinder}) rather than from
+     * a sorted copy of them.  It has no effect when allowed or disallowed
+     * fields are set, since only the allowed parameters are collected
+     * then, without copying the others.  The default is false.
+     * @param bindParameterMap the bindParameterMap to set
+     */
+    public void setBindParameterMap(boolean bindParameterMap) {
+        this.bindParameterMap = bindParameterMap;
+    }
+
     /**
      * @return the defaultView
      */
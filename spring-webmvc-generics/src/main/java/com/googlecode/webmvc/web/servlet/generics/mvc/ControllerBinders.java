@@ -0,0 +1,247 @@
+package com.googlecode.webmvc.web.servlet.generics.mvc;
+
+import java.beans.PropertyDescriptor;
+import java.beans.PropertyEditor;
+import java.beans.PropertyEditorSupport;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.propertyeditors.CustomCollectionEditor;
+import org.springframework.web.bind.ServletRequestDataBinder;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.FieldMatcher;
+import com.googlecode.webmvc.web.servlet.generics.bind.FieldMatchingServletRequestDataBinder;
+import com.googlecode.webmvc.web.servlet.generics.bind.ParameterMapServletRequestDataBinder;
+import com.googlecode.webmvc.web.servlet.generics.util.ClassCache;
+import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
+import com.googlecode.webmvc.web.servlet.generics.util.ResolvedType;
+
+/**
+ * <p>
+ *  Creates the binders of the generic controllers, which extend
+ *  different spring controllers and can't share the code, so that
+ *  they all choose the binder for their configuration the same way.
+ * </p>
+ */
+final class ControllerBinders {
+
+    private static final GenericProperty[] NO_PROPERTIES = new GenericProperty[0];
+
+    private static final ClassCache<ConcurrentMap<Class<?>, GenericProperty[]>> GENERIC_PROPERTIES
+        = new ClassCache<ConcurrentMap<Class<?>, GenericProperty[]>>() {
+            @Override
+            protected ConcurrentMap<Class<?>, GenericProperty[]> computeValue(Class<?> clazz) {
+                return new ConcurrentHashMap<Class<?>, GenericProperty[]>();
+            }
+        };
+
+    /**
+     * Static methods only.
+     */
+    private ControllerBinders() {
+        // no-op
+    }
+
+    /**
+     * Creates a binder for the given command that hasn't been
+     * prepared or initialized yet.  A {@link FieldMatcher} takes
+     * precedence over binding the parameter map, since it already
+     * collects only the allowed parameters straight from the
+     * request without copying the others.
+     * @param command the command
+     * @param commandName the name of the command
+     * @param fieldMatcher the allowed fields, or null
+     * @param bindParameterMap whether or not to bind a view of the
+     * request's parameter map
+     * @return the binder
+     */
+    static ServletRequestDataBinder createBinder(
+        Object command, String commandName, FieldMatcher fieldMatcher, boolean bindParameterMap) {
+        if (fieldMatcher!=null) {
+            return new FieldMatchingServletRequestDataBinder(command, commandName, fieldMatcher);
+        } else if (bindParameterMap) {
+            return new ParameterMapServletRequestDataBinder(command, commandName);
+        }
+        return new ServletRequestDataBinder(command, commandName);
+    }
+
+    /**
+     * Registers editors for the properties of the command whose
+     * types are only known from the controller's type argument,
+     * see {@link GenericsUtil#getTypeVariableType(Class, Class, String)}.
+     * For instance a property declared as <code>I</code> or
+     * <code>List&lt;I&gt;</code> in a <code>Command&lt;I&gt;</code>
+     * is bound as a Long, or a list of them, for a controller of a
+     * <code>Command&lt;Long&gt;</code> rather than as Strings.  This
+     * must be called once the binder is configured, editors that
+     * the controller registered for those properties are kept.
+     * @param binder the binder
+     * @param controllerClass the class of the controller
+     * @param genericClazz the generic controller class declaring
+     * the command's type variable
+     */
+    static void registerGenericEditors(
+        ServletRequestDataBinder binder, Class<?> controllerClass, Class<?> genericClazz) {
+        for (GenericProperty property : getGenericProperties(controllerClass, genericClazz)) {
+            if (binder.findCustomEditor(property.type, property.name)==null) {
+                binder.registerCustomEditor(property.type, property.name, property.createEditor());
+            }
+        }
+    }
+
+    /**
+     * Returns the generic properties of the given
+     * controller's command, finding them only once.
+     * @param controllerClass the class of the controller
+     * @param genericClazz the generic controller class
+     * @return the properties
+     */
+    private static GenericProperty[] getGenericProperties(Class<?> controllerClass, Class<?> genericClazz) {
+        ConcurrentMap<Class<?>, GenericProperty[]> properties = GENERIC_PROPERTIES.get(controllerClass);
+        GenericProperty[] found = properties.get(genericClazz);
+        if (found==null) {
+            found = findGenericProperties(
+                GenericsUtil.getTypeVariableType(controllerClass, genericClazz, "T"));
+            properties.putIfAbsent(genericClazz, found);
+        }
+        return found;
+    }
+
+    /**
+     * Finds the properties of the given command type that are
+     * declared with a type variable and resolve to something more
+     * specific than their erasure.  Arrays, maps and nested
+     * properties are left to the BeanWrapper.
+     * @param commandType the command type, or null
+     * @return the properties
+     */
+    private static GenericProperty[] findGenericProperties(ResolvedType commandType) {
+        if (commandType==null) {
+            return NO_PROPERTIES;
+        }
+        List<GenericProperty> found = new ArrayList<GenericProperty>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(commandType.getRawClass())) {
+            Method setter = descriptor.getWriteMethod();
+            if (setter==null || !isGeneric(setter.getGenericParameterTypes()[0])) {
+                continue;
+            }
+            Class<?> type = setter.getParameterTypes()[0];
+            ResolvedType resolved = commandType.resolve(setter.getGenericParameterTypes()[0]);
+            if (Collection.class.isAssignableFrom(type)) {
+                ResolvedType element = resolved.getElementType();
+                if (element!=null && element.getRawClass()!=Object.class) {
+                    found.add(new GenericProperty(descriptor.getName(), type, element.getRawClass(), true));
+                }
+            } else if (!type.isArray() && !Map.class.isAssignableFrom(type)
+                && resolved.getRawClass()!=type) {
+                found.add(new GenericProperty(descriptor.getName(), type, resolved.getRawClass(), false));
+            }
+        }
+        return found.toArray(new GenericProperty[found.size()]);
+    }
+
+    /**
+     * Checks whether or not the given type refers to a type variable.
+     * @param type the type
+     * @return true if it does
+     */
+    private static boolean isGeneric(Type type) {
+        if (type instanceof TypeVariable) {
+            return true;
+        } else if (type instanceof ParameterizedType) {
+            for (Type arg : ((ParameterizedType)type).getActualTypeArguments()) {
+                if (isGeneric(arg)) {
+                    return true;
+                }
+            }
+        } else if (type instanceof GenericArrayType) {
+            return isGeneric(((GenericArrayType)type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType)type).getUpperBounds()) {
+                if (isGeneric(bound)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A command property whose type, or element type, was resolved.
+     */
+    private static final class GenericProperty {
+
+        private final String name;
+        private final Class<?> type;
+        private final Class<?> valueType;
+        private final boolean collection;
+
+        /**
+         * Creates the GenericProperty.
+         * @param name the property name
+         * @param type the declared (erased) type
+         * @param valueType the resolved type, or element type
+         * @param collection whether or not the property is a collection
+         */
+        GenericProperty(String name, Class<?> type, Class<?> valueType, boolean collection) {
+            this.name = name;
+            this.type = type;
+            this.valueType = valueType;
+            this.collection = collection;
+        }
+
+        /**
+         * Creates an editor for the property, editors aren't
+         * thread safe so there is one per binder.
+         * @return the editor
+         */
+        PropertyEditor createEditor() {
+            final SimpleTypeConverter converter = new SimpleTypeConverter();
+            if (collection) {
+                return new CustomCollectionEditor(type) {
+                    @Override
+                    protected Object convertElement(Object element) {
+                        return convert(converter, element, valueType);
+                    }
+                };
+            }
+            return new PropertyEditorSupport() {
+                @Override
+                public void setAsText(String text) {
+                    setValue(convert(converter, text, valueType));
+                }
+            };
+        }
+
+        /**
+         * Converts the given value, failing the way
+         * editors are expected to.
+         * @param converter the converter
+         * @param value the value
+         * @param requiredType the type to convert to
+         * @return the converted value
+         * @throws IllegalArgumentException if it can't be converted
+         */
+        private static Object convert(SimpleTypeConverter converter, Object value, Class<?> requiredType) {
+            try {
+                return converter.convertIfNecessary(value, requiredType);
+            } catch (TypeMismatchException tme) {
+                throw new IllegalArgumentException(tme.getMessage());
+            }
+        }
+    }
+
+}
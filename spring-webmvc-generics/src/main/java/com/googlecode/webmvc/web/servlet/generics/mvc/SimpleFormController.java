@@ -6,6 +6,7 @@ import org.springframework.validation.BindException;
 import org.springframework.web.bind.ServletRequestDataBinder;
 import org.springframework.web.servlet.ModelAndView;
 
+import com.googlecode.webmvc.web.servlet.generics.bind.FieldMatcher;
 import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
 
 import javax.servlet.http.HttpServletRequest;
@@ -47,6 +48,11 @@ import java.util.Map;
 public abstract class SimpleFormController<T>
     extends org.springframework.web.servlet.mvc.SimpleFormController {
 
+    private String[] allowedFields;
+    private String[] disallowedFields;
+    private FieldMatcher fieldMatcher;
+    private boolean bindParameterMap = false;
+
     /**
      * Creates the BaseCommandController.
      */
@@ -494,7 +500,42 @@ public abstract class SimpleFormController<T>
     protected ServletRequestDataBinder createBinder(
         T command, HttpServletRequest request) 
         throws Exception {
-        return super.createBinder(request, command);
+        ServletRequestDataBinder binder = ControllerBinders.createBinder(
+            command, getCommandName(), fieldMatcher, bindParameterMap);
+        prepareBinder(binder);
+        initBinder(request, binder);
+        ControllerBinders.registerGenericEditors(binder, getClass(), SimpleFormController.class);
+        return binder;
+    }
+
+    /**
+     * Sets the fields that may be bound,
+     * {@see BaseCommandController#setAllowedFields(String[])}.
+     * @param allowedFields the allowedFields to set
+     */
+    public void setAllowedFields(String[] allowedFields) {
+        this.allowedFields = allowedFields;
+        this.fieldMatcher = FieldMatcher.compile(this.allowedFields, this.disallowedFields);
+    }
+
+    /**
+     * Sets the fields that may not be bound,
+     * {@see #setAllowedFields(String[])}.
+     * @param disallowedFields the disallowedFields to set
+     */
+    public void setDisallowedFields(String[] disallowedFields) {
+        this.disallowedFields = disallowedFields;
+        this.fieldMatcher = FieldMatcher.compile(this.allowedFields, this.disallowedFields);
+    }
+
+    /**
+     * Sets whether or not request parameters are bound straight from
+     * the request's parameter map,
+     * {@see BaseCommandController#setBindParameterMap(boolean)}.
+     * @param bindParameterMap the bindParameterMap to set
+     */
+    public void setBindParameterMap(boolean bindParameterMap) {
+        this.bindParameterMap = bindParameterMap;
     }
     
 
@@ -0,0 +1,47 @@
+package com.googlecode.webmvc.web.servlet.generics.support;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import com.googlecode.webmvc.web.servlet.generics.util.ClassCache;
+
+/**
+ * <p>
+ *  A {@link ServletContextListener} that accepts the webapp's
+ *  ClassLoader when the webapp starts, so that the values cached
+ *  for its classes (see {@link ClassCache}) are held strongly, and
+ *  clears it when the webapp is stopped so that the ClassLoader can
+ *  be collected.  Only useful when this library is shared between
+ *  webapps, ie: deployed in the container's lib directory, where
+ *  the values for the webapp's classes are otherwise held through
+ *  soft references and may have to be recomputed when memory runs
+ *  low.  Either way the webapp's ClassLoader isn't kept alive after
+ *  a redeploy, as long as the listener clears what it accepted.
+ * </p>
+ *
+ * <pre>
+ *      <code>
+ *      &lt;listener&gt;
+ *          &lt;listener-class&gt;com.googlecode.webmvc.web.servlet.generics.support.ClassCacheCleanupListener&lt;/listener-class&gt;
+ *      &lt;/listener&gt;
+ *      </code>
+ * </pre>
+ */
+public class ClassCacheCleanupListener
+    implements ServletContextListener {
+
+    /**
+     * {@inheritDoc}
+     */
+    public void contextInitialized(ServletContextEvent event) {
+        ClassCache.acceptClassLoader(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void contextDestroyed(ServletContextEvent event) {
+        ClassCache.clearClassLoader(Thread.currentThread().getContextClassLoader());
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.googlecode.webmvc.web.servlet.generics.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
+
+import com.googlecode.webmvc.validation.AbstractGenericValidator;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractCommandController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractFormController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractWizardFormController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.BaseCommandController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.SimpleFormController;
+import com.googlecode.webmvc.web.servlet.generics.mvc.SimpleFormControllerEx;
+import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
+
+/**
+ * <p>
+ *  A {@link BeanFactoryPostProcessor} that resolves the command
+ *  class of every generic controller and the target class of every
+ *  {@link AbstractGenericValidator} defined in the bean factory,
+ *  in parallel, when the context is refreshed.  This primes the
+ *  {@link GenericsUtil} cache so that no bean (prototype or not)
+ *  pays for the reflection in its constructor, and makes that
+ *  cost visible: the time spent on each class is logged at
+ *  debug level and is available from {@link #getResolutionTimes()}.
+ * </p>
+ *
+ * <pre>
+ *      <code>
+ *      &lt;bean class="com.googlecode.webmvc.web.servlet.generics.support.GenericTypePrimingPostProcessor"&gt;
+ *          &lt;property name="threads" value="4" /&gt;
+ *      &lt;/bean&gt;
+ *      </code>
+ * </pre>
+ */
+public class GenericTypePrimingPostProcessor
+    implements BeanFactoryPostProcessor,
+    Ordered {
+
+    private static final Class<?>[] GENERIC_TYPES = {
+        AbstractGenericValidator.class,
+        AbstractCommandController.class,
+        AbstractFormController.class,
+        AbstractUrlCommandController.class,
+        AbstractWizardFormController.class,
+        BaseCommandController.class,
+        SimpleFormController.class,
+        SimpleFormControllerEx.class
+    };
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int order   = Ordered.LOWEST_PRECEDENCE;
+    private Map<String, Long> resolutionTimes = Collections.emptyMap();
+
+    /**
+     * {@inheritDoc}
+     */
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory)
+        throws BeansException {
+
+        // find the classes
+        Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition.isAbstract() || definition.getBeanClassName()==null) {
+                continue;
+            }
+            try {
+                Class<?> clazz = ClassUtils.forName(
+                    definition.getBeanClassName(), beanFactory.getBeanClassLoader());
+                if (isGeneric(clazz)) {
+                    classes.add(clazz);
+                }
+            } catch (ClassNotFoundException cnfe) {
+                // the bean factory will complain about this one
+                continue;
+            } catch (LinkageError le) {
+                continue;
+            }
+        }
+        if (classes.isEmpty()) {
+            return;
+        }
+
+        // resolve them
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, classes.size())));
+        try {
+            List<Callable<Long>> tasks = new ArrayList<Callable<Long>>(classes.size());
+            for (final Class<?> clazz : classes) {
+                tasks.add(new Callable<Long>() {
+                    public Long call() {
+                        return prime(clazz);
+                    }
+                });
+            }
+            List<Future<Long>> results = executor.invokeAll(tasks);
+
+            // report on them, a class that failed
+            // doesn't keep the others from being reported
+            Map<String, Long> times = new LinkedHashMap<String, Long>();
+            int i = 0;
+            for (Class<?> clazz : classes) {
+                long time;
+                try {
+                    time = results.get(i++).get();
+                } catch (ExecutionException ee) {
+                    logger.warn("Unable to resolve generic types of "+clazz.getName(), ee.getCause());
+                    continue;
+                }
+                times.put(clazz.getName(), time);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Resolved generic types of "+clazz.getName()+" in "+time/1000+"us");
+                }
+            }
+            this.resolutionTimes = Collections.unmodifiableMap(times);
+
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+
+        if (logger.isInfoEnabled()) {
+            logger.info("Resolved generic types of "+classes.size()+" classes in "
+                +(System.nanoTime()-start)/1000000+"ms");
+        }
+    }
+
+    /**
+     * Resolves the generic types of the given class the
+     * same way the generic base classes' constructors do.
+     * @param clazz the class
+     * @return the time it took, in nanoseconds
+     */
+    private static long prime(Class<?> clazz) {
+        long start = System.nanoTime();
+        for (Class<?> genericType : GENERIC_TYPES) {
+            if (genericType.isAssignableFrom(clazz)) {
+                GenericsUtil.getTypeVariableClassByName(clazz, genericType, "T", true);
+            }
+        }
+        return System.nanoTime()-start;
+    }
+
+    /**
+     * Checks whether or not the given class extends
+     * one of the generic base classes.
+     * @param clazz the class
+     * @return true if it does
+     */
+    private static boolean isGeneric(Class<?> clazz) {
+        for (Class<?> genericType : GENERIC_TYPES) {
+            if (genericType.isAssignableFrom(clazz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the time, in nanoseconds, it took to resolve
+     * the generic types of each class during the last refresh.
+     * @return the resolution times keyed by class name
+     */
+    public Map<String, Long> getResolutionTimes() {
+        return resolutionTimes;
+    }
+
+    /**
+     * Sets the number of threads used to resolve the
+     * generic types.  By default this is the number
+     * of available processors.
+     * @param threads the threads to set
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return the order
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @param order the order to set
+     */
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+}
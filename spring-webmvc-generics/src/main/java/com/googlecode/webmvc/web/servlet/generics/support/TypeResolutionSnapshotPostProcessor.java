@@ -0,0 +1,106 @@
+package com.googlecode.webmvc.web.servlet.generics.support;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.PriorityOrdered;
+
+import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
+
+/**
+ * <p>
+ *  A {@link BeanFactoryPostProcessor} that loads a
+ *  {@link GenericsUtil} snapshot when the context is refreshed,
+ *  before any controller is created, and writes a new snapshot
+ *  when the context is closed.  See {@link GenericsUtil#loadSnapshot(File)}.
+ *  A snapshot that can't be loaded is logged and discarded as a
+ *  whole, it is never partly applied.
+ * </p>
+ *
+ * <pre>
+ *      <code>
+ *      &lt;bean class="com.googlecode.webmvc.web.servlet.generics.support.TypeResolutionSnapshotPostProcessor"&gt;
+ *          &lt;property name="file" value="/var/cache/myapp/generics.snapshot" /&gt;
+ *      &lt;/bean&gt;
+ *      </code>
+ * </pre>
+ */
+public class TypeResolutionSnapshotPostProcessor
+    implements BeanFactoryPostProcessor,
+    DisposableBean,
+    PriorityOrdered {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private File file;
+    private boolean writeOnClose    = true;
+    private int order               = PriorityOrdered.HIGHEST_PRECEDENCE;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory)
+        throws BeansException {
+        if (file==null || !file.isFile()) {
+            return;
+        }
+        try {
+            GenericsUtil.loadSnapshot(file);
+        } catch (IOException ioe) {
+            logger.warn("Unable to load generic type snapshot from "+file
+                +", none of it was applied and types will be resolved through reflection", ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void destroy() {
+        if (file==null || !writeOnClose) {
+            return;
+        }
+        try {
+            GenericsUtil.writeSnapshot(file);
+        } catch (IOException ioe) {
+            logger.warn("Unable to write generic type snapshot to "+file, ioe);
+        }
+    }
+
+    /**
+     * Sets the snapshot file.
+     * @param file the file to set
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets whether or not a new snapshot is written when
+     * the context is closed.  The default is true.
+     * @param writeOnClose the writeOnClose to set
+     */
+    public void setWriteOnClose(boolean writeOnClose) {
+        this.writeOnClose = writeOnClose;
+    }
+
+    /**
+     * @return the order
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @param order the order to set
+     */
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.googlecode.webmvc.web.servlet.generics.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController;
+
+/**
+ * <p>
+ *  Finds the url patterns of the {@link AbstractUrlCommandController}s
+ *  in an application context by reading the <code>urlPattern</code>
+ *  property from their bean definitions, so that prototype and
+ *  lazy-init controllers aren't created just to ask them for their
+ *  pattern.  Only a singleton controller whose pattern isn't in its
+ *  bean definition (ie: it's set in the constructor) is created to
+ *  get its pattern, other controllers like that are skipped.
+ * </p>
+ */
+public final class UrlPatternDefinitions {
+
+    /**
+     * The name of the property holding the url pattern.
+     */
+    public static final String URL_PATTERN_PROPERTY = "urlPattern";
+
+    private static final Log LOGGER = LogFactory.getLog(UrlPatternDefinitions.class);
+
+    /**
+     * Not instantiable.
+     */
+    private UrlPatternDefinitions() {
+    }
+
+    /**
+     * Returns the url patterns of the controllers in the given
+     * context and its ancestors, compiled.
+     * @param context the context
+     * @return the patterns keyed by bean name, controllers
+     * without a pattern are left out
+     */
+    public static Map<String, UrlPattern> findUrlPatterns(ApplicationContext context) {
+        Map<String, UrlPattern> patterns = new LinkedHashMap<String, UrlPattern>();
+        String[] names = BeanFactoryUtils.beanNamesForTypeIncludingAncestors(
+            context, AbstractUrlCommandController.class, true, false);
+        for (String name : names) {
+            UrlPattern pattern = getUrlPattern(context, name);
+            if (pattern!=null) {
+                patterns.put(name, pattern);
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Returns the url pattern of the given controller, compiled.
+     * @param context the context
+     * @param name the bean name of the controller
+     * @return the pattern, or null if it doesn't have one
+     */
+    public static UrlPattern getUrlPattern(ApplicationContext context, String name) {
+
+        // the bean definition
+        for (ApplicationContext ctx = context; ctx!=null; ctx = ctx.getParent()) {
+            if (!(ctx instanceof ConfigurableApplicationContext)) {
+                continue;
+            }
+            ConfigurableListableBeanFactory beanFactory
+                = ((ConfigurableApplicationContext)ctx).getBeanFactory();
+            if (!beanFactory.containsBeanDefinition(name)) {
+                continue;
+            }
+            BeanDefinition definition = beanFactory.getMergedBeanDefinition(name);
+            PropertyValue value = definition.getPropertyValues().getPropertyValue(URL_PATTERN_PROPERTY);
+            if (value!=null) {
+                String pattern = getString(value.getValue());
+                if (pattern!=null) {
+                    return UrlPattern.compile(pattern);
+                }
+            }
+            break;
+        }
+
+        // or the controller itself
+        if (context.isSingleton(name)) {
+            return ((AbstractUrlCommandController<?>)context.getBean(name)).getCompiledUrlPattern();
+        }
+        LOGGER.warn("Unable to read the url pattern of ["+name+"] from its bean definition");
+        return null;
+    }
+
+    /**
+     * Returns the given property value as a string.
+     * @param value the value
+     * @return the string, or null if it isn't one
+     */
+    private static String getString(Object value) {
+        if (value instanceof String) {
+            return (String)value;
+        } else if (value instanceof TypedStringValue) {
+            return ((TypedStringValue)value).getValue();
+        }
+        return null;
+    }
+
+}
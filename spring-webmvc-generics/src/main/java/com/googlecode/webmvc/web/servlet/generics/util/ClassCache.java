@@ -0,0 +1,313 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ *  A thread safe cache of values computed lazily per {@link Class},
+ *  modeled after <code>java.lang.ClassValue</code> but usable on
+ *  a Java 5 runtime.  Lookups of already computed values are
+ *  lock-free reads from a {@link ConcurrentHashMap}.
+ * </p>
+ *
+ * <p>
+ *  Classes are only weakly referenced by the cache so that a
+ *  webapp's classes (and their ClassLoader) can be collected
+ *  after a redeploy.  Values are held strongly for classes that
+ *  were loaded by this library's ClassLoader or one of its
+ *  parents, which live at least as long as the cache, or by a
+ *  ClassLoader that was accepted with
+ *  {@link #acceptClassLoader(ClassLoader)} (or one of its
+ *  parents), the same way Spring's
+ *  <code>CachedIntrospectionResults</code> does.  An accepted
+ *  ClassLoader must be cleared with
+ *  {@link #clearClassLoader(ClassLoader)} when it is discarded,
+ *  see {@link com.googlecode.webmvc.web.servlet.generics.support.ClassCacheCleanupListener}.
+ * </p>
+ *
+ * <p>
+ *  Values for any other class, ie: those of a webapp when this
+ *  library is in the container's lib directory, are held through a
+ *  {@link SoftReference}, since a value may itself reference the
+ *  class it was computed for.  They survive ordinary garbage
+ *  collections and are only reclaimed (and recomputed later)
+ *  when memory runs low.
+ * </p>
+ *
+ * @param <V> the type of the cached values
+ */
+public abstract class ClassCache<V> {
+
+    private static final Map<ClassLoader, Boolean> ACCEPTED_CLASS_LOADERS
+        = Collections.synchronizedMap(new WeakHashMap<ClassLoader, Boolean>());
+    private static final Map<ClassCache<?>, Boolean> CACHES
+        = Collections.synchronizedMap(new WeakHashMap<ClassCache<?>, Boolean>());
+
+    private final ConcurrentMap<ClassKey, Object> entries
+        = new ConcurrentHashMap<ClassKey, Object>();
+    private final ReferenceQueue<Class<?>> staleKeys
+        = new ReferenceQueue<Class<?>>();
+
+    /**
+     * Creates the ClassCache.
+     */
+    protected ClassCache() {
+        CACHES.put(this, Boolean.TRUE);
+    }
+
+    /**
+     * Accepts the given ClassLoader, so that the values for its
+     * classes (and those of its parents) are held strongly.  The
+     * ClassLoader itself is only weakly referenced.
+     * @param classLoader the ClassLoader
+     */
+    public static void acceptClassLoader(ClassLoader classLoader) {
+        if (classLoader!=null) {
+            ACCEPTED_CLASS_LOADERS.put(classLoader, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Removes the given ClassLoader from the accepted ClassLoaders
+     * and removes the values for its classes (and those of its
+     * children) from every cache.
+     * @param classLoader the ClassLoader
+     */
+    public static void clearClassLoader(ClassLoader classLoader) {
+        if (classLoader==null) {
+            return;
+        }
+        ACCEPTED_CLASS_LOADERS.remove(classLoader);
+        List<ClassCache<?>> caches;
+        synchronized (CACHES) {
+            caches = new ArrayList<ClassCache<?>>(CACHES.keySet());
+        }
+        for (ClassCache<?> cache : caches) {
+            for (Iterator<ClassKey> itr = cache.entries.keySet().iterator(); itr.hasNext();) {
+                Class<?> clazz = itr.next().get();
+                if (clazz==null || isLoadedBy(clazz, classLoader)) {
+                    itr.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the value for the given class.  This is called
+     * at most once per class unless the value was reclaimed,
+     * although it may be called concurrently by several threads
+     * in which case only the first value stored is kept.
+     * @param clazz the class
+     * @return the value, never null
+     */
+    protected abstract V computeValue(Class<?> clazz);
+
+    /**
+     * Returns the value for the given class, computing
+     * it if it hasn't been computed yet.
+     * @param clazz the class
+     * @return the value
+     */
+    public V get(Class<?> clazz) {
+
+        // the fast path, polling an empty queue doesn't lock
+        expungeStaleEntries();
+        V value = unwrap(entries.get(new ClassKey(clazz, null)));
+        if (value!=null) {
+            return value;
+        }
+
+        // compute and store it
+        value = computeValue(clazz);
+        Object entry = isCacheSafe(clazz) ? value : new SoftReference<V>(value);
+        Object existing = entries.putIfAbsent(new ClassKey(clazz, staleKeys), entry);
+        if (existing!=null) {
+            V existingValue = unwrap(existing);
+            if (existingValue!=null) {
+                return existingValue;
+            }
+            entries.put(new ClassKey(clazz, staleKeys), entry);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the value for the given class, if any.
+     * @param clazz the class
+     */
+    public void remove(Class<?> clazz) {
+        entries.remove(new ClassKey(clazz, null));
+        expungeStaleEntries();
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void clear() {
+        entries.clear();
+        expungeStaleEntries();
+    }
+
+    /**
+     * Returns a copy of the values currently in the cache.
+     * @return the values keyed by class
+     */
+    public Map<Class<?>, V> entries() {
+        expungeStaleEntries();
+        Map<Class<?>, V> copy = new HashMap<Class<?>, V>();
+        for (Map.Entry<ClassKey, Object> entry : entries.entrySet()) {
+            Class<?> clazz = entry.getKey().get();
+            V value = unwrap(entry.getValue());
+            if (clazz!=null && value!=null) {
+                copy.put(clazz, value);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the number of classes currently in the cache.
+     * @return the size
+     */
+    public int size() {
+        expungeStaleEntries();
+        return entries.size();
+    }
+
+    /**
+     * Returns the value stored in the given entry.
+     * @param entry the entry
+     * @return the value, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object entry) {
+        return (entry instanceof Reference)
+            ? ((Reference<V>)entry).get()
+            : (V)entry;
+    }
+
+    /**
+     * Removes the entries of classes that have been collected.
+     */
+    private void expungeStaleEntries() {
+        Reference<?> ref;
+        while ((ref = staleKeys.poll())!=null) {
+            entries.remove(ref);
+        }
+    }
+
+    /**
+     * Checks whether or not the given class was loaded by the
+     * ClassLoader that loaded this class, an accepted ClassLoader
+     * or one of their parents, meaning that holding a strong
+     * reference to it won't keep an otherwise unreachable
+     * ClassLoader alive.  Classes of child ClassLoaders, ie: a
+     * webapp's, aren't safe.
+     * @param clazz the class
+     * @return true if it's safe to hold on to the class
+     */
+    static boolean isCacheSafe(Class<?> clazz) {
+        ClassLoader loader = clazz.getClassLoader();
+        if (loader==null || isParentOrSelf(loader, ClassCache.class.getClassLoader())) {
+            return true;
+        }
+        ClassLoader[] accepted;
+        synchronized (ACCEPTED_CLASS_LOADERS) {
+            accepted = ACCEPTED_CLASS_LOADERS.keySet().toArray(
+                new ClassLoader[ACCEPTED_CLASS_LOADERS.size()]);
+        }
+        for (ClassLoader acceptedLoader : accepted) {
+            if (isParentOrSelf(loader, acceptedLoader)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether or not the given ClassLoader is the other
+     * ClassLoader or one of its parents.
+     * @param loader the ClassLoader
+     * @param child the other ClassLoader, or null
+     * @return true if it is
+     */
+    private static boolean isParentOrSelf(ClassLoader loader, ClassLoader child) {
+        for (ClassLoader cl = child; cl!=null; cl = cl.getParent()) {
+            if (cl==loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether or not the given class was loaded by the
+     * given ClassLoader or one of its children.
+     * @param clazz the class
+     * @param classLoader the ClassLoader
+     * @return true if it was
+     */
+    private static boolean isLoadedBy(Class<?> clazz, ClassLoader classLoader) {
+        for (ClassLoader cl = clazz.getClassLoader(); cl!=null; cl = cl.getParent()) {
+            if (cl==classLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Weak reference to a class used as a key.
+     */
+    private static final class ClassKey
+        extends WeakReference<Class<?>> {
+
+        private final int hash;
+
+        /**
+         * Creates the ClassKey.
+         * @param clazz the class
+         * @param queue the queue to register with, or null
+         */
+        ClassKey(Class<?> clazz, ReferenceQueue<Class<?>> queue) {
+            super(clazz, queue);
+            this.hash = System.identityHashCode(clazz);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj==this) {
+                return true;
+            }
+            if (!(obj instanceof ClassKey)) {
+                return false;
+            }
+            Object clazz = get();
+            return clazz!=null && clazz==((ClassKey)obj).get();
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>
+ *  Type variable bindings that were computed at compile time by
+ *  the <code>spring-webmvc-generics-apt</code> annotation processor.
+ *  The processor writes one line per binding to
+ *  {@link #BINDINGS_RESOURCE} in the form:
+ *  <pre>
+ *      com.example.PersonController com.googlecode.webmvc.web.servlet.generics.mvc.SimpleFormController T com.example.Person
+ *  </pre>
+ *  A binding is only a hint: {@link GenericsUtil} resolves every
+ *  type variable by reflecting over the class hierarchy (once, the
+ *  result is cached) and confirms the binding against it, so a
+ *  binding that disagrees, ie: from a stale bindings file or a
+ *  class bound to a type variable, is reported and ignored.
+ * </p>
+ *
+ * <p>
+ *  Bindings are read once per ClassLoader and held by class
+ *  name only.  A bound class that can no longer be loaded is
+ *  treated as a missing binding.
+ * </p>
+ */
+public final class GeneratedTypeBindings {
+
+    /**
+     * The location of the generated bindings on the classpath.
+     */
+    public static final String BINDINGS_RESOURCE = "META-INF/spring-webmvc-generics.bindings";
+
+    private static final Log LOGGER = LogFactory.getLog(GeneratedTypeBindings.class);
+
+    private static final Map<ClassLoader, Map<String, String>> BINDINGS
+        = new WeakHashMap<ClassLoader, Map<String, String>>();
+
+    /**
+     * Not instantiable.
+     */
+    private GeneratedTypeBindings() {
+    }
+
+    /**
+     * Returns the generated binding of the given type variable
+     * for the given class, or null if there isn't one.
+     * @param clazz the class
+     * @param declaration the class or interface declaring the type variable
+     * @param name the name of the type variable
+     * @return the bound class
+     */
+    public static Class<?> getBoundClass(Class<?> clazz, Class<?> declaration, String name) {
+        ClassLoader loader = clazz.getClassLoader();
+        if (loader==null) {
+            return null;
+        }
+
+        // find the binding
+        String boundClass = getBindings(loader).get(
+            clazz.getName()+" "+declaration.getName()+" "+name);
+        if (boundClass==null) {
+            return null;
+        }
+
+        // load it
+        try {
+            return Class.forName(boundClass, false, loader);
+        } catch (ClassNotFoundException cnfe) {
+            return null;
+        }
+    }
+
+    /**
+     * Confirms the generated binding of the given type variable, if
+     * there is one, against the class that was resolved for it by
+     * reflection, warning when they disagree.
+     * @param clazz the class
+     * @param declaration the class or interface declaring the type variable
+     * @param name the name of the type variable
+     * @param resolved the class resolved by reflection, or null
+     * @return false if there is a binding that disagrees
+     */
+    public static boolean confirm(Class<?> clazz, Class<?> declaration, String name, Class<?> resolved) {
+        Class<?> bound = getBoundClass(clazz, declaration, name);
+        if (bound==null || bound.equals(resolved)) {
+            return true;
+        }
+        LOGGER.warn("Ignoring generated binding of "+declaration.getName()+"."+name+" for "
+            +clazz.getName()+" to "+bound.getName()+", it is bound to "
+            +((resolved!=null) ? resolved.getName() : "nothing")+", is "+BINDINGS_RESOURCE+" stale?");
+        return false;
+    }
+
+    /**
+     * Returns the bindings visible to the given ClassLoader,
+     * reading them if they haven't been read yet.
+     * @param loader the ClassLoader
+     * @return the bindings
+     */
+    private static Map<String, String> getBindings(ClassLoader loader) {
+        synchronized (BINDINGS) {
+            Map<String, String> bindings = BINDINGS.get(loader);
+            if (bindings==null) {
+                bindings = readBindings(loader);
+                BINDINGS.put(loader, bindings);
+            }
+            return bindings;
+        }
+    }
+
+    /**
+     * Reads all of the binding resources visible to the given
+     * ClassLoader.  If they can't be read then no bindings
+     * are used at all.
+     * @param loader the ClassLoader
+     * @return the bindings
+     */
+    private static Map<String, String> readBindings(ClassLoader loader) {
+        Map<String, String> bindings = new HashMap<String, String>();
+        try {
+            Enumeration<URL> urls = loader.getResources(BINDINGS_RESOURCE);
+            while (urls.hasMoreElements()) {
+                readBindings(urls.nextElement(), bindings);
+            }
+        } catch (IOException ioe) {
+            return Collections.emptyMap();
+        }
+        return bindings.isEmpty()
+            ? Collections.<String, String>emptyMap()
+            : bindings;
+    }
+
+    /**
+     * Reads the bindings from the given resource.
+     * @param url the resource
+     * @param bindings the bindings to add to
+     * @throws IOException on error
+     */
+    private static void readBindings(URL url, Map<String, String> bindings)
+        throws IOException {
+        InputStream in = url.openStream();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+            for (String line = reader.readLine(); line!=null; line = reader.readLine()) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length==4 && !parts[0].startsWith("#")) {
+                    bindings.put(parts[0]+" "+parts[1]+" "+parts[2], parts[3]);
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+}
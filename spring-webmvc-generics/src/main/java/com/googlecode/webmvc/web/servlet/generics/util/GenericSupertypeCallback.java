@@ -0,0 +1,26 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+
+/**
+ * Callback invoked by
+ * {@link GenericsUtil#forEachGenericSupertype(Class, GenericSupertypeCallback)}
+ * for each {@link ParameterizedType} a class extends or implements.
+ */
+public interface GenericSupertypeCallback {
+
+    /**
+     * Called for a generic supertype.  The arrays passed in
+     * are shared and must not be modified.
+     * @param type the parameterized supertype
+     * @param typeVariables the type variables declared by the
+     * supertype's raw class, in the same order as
+     * {@link ParameterizedType#getActualTypeArguments()}
+     * @param typeArguments the type arguments of the supertype
+     * @return true to continue with the next supertype, false to stop
+     */
+    boolean doWith(ParameterizedType type, TypeVariable<?>[] typeVariables, Type[] typeArguments);
+
+}
@@ -1,15 +1,51 @@
 package com.googlecode.webmvc.web.servlet.generics.util;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.GenericDeclaration;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Utilities for working with generic types.
  */
 public abstract class GenericsUtil {
+
+    private static final Object NOT_FOUND = new Object();
+
+    private static final ClassCache<ConcurrentMap<ResolutionKey, Object>> RESOLVED_TYPES
+        = new ClassCache<ConcurrentMap<ResolutionKey, Object>>() {
+            @Override
+            protected ConcurrentMap<ResolutionKey, Object> computeValue(Class<?> clazz) {
+                return new ConcurrentHashMap<ResolutionKey, Object>();
+            }
+        };
+    
+    private static final ClassCache<ConcurrentMap<ResolutionKey, Object>> RESOLVED_DESCRIPTORS
+        = new ClassCache<ConcurrentMap<ResolutionKey, Object>>() {
+            @Override
+            protected ConcurrentMap<ResolutionKey, Object> computeValue(Class<?> clazz) {
+                return new ConcurrentHashMap<ResolutionKey, Object>();
+            }
+        };
+    
+    private static final ClassCache<GenericSupertypes> GENERIC_SUPERTYPES
+        = new ClassCache<GenericSupertypes>() {
+            @Override
+            protected GenericSupertypes computeValue(Class<?> clazz) {
+                return new GenericSupertypes(clazz);
+            }
+        };
+    
+    private static final Type ALL_PARAMETERS = new Type() { };
+    
+    private static volatile TypeResolutionSnapshot snapshot;
     
     /**
      * Returns the class defined for the type variable
@@ -27,7 +63,9 @@ public abstract class GenericsUtil {
     
     /**
      * Returns the class defined for the type variable
-     * of the given name. 
+     * of the given name.  When recursing, type variables
+     * that are bound to other type variables further down
+     * the hierarchy are resolved as well.
      * @param clazz the class
      * @param genericClazz the generic class or interface to check the type for
      * @param name the name of the type variable
@@ -43,14 +81,171 @@ public abstract class GenericsUtil {
             return null;
         }
         
+        // resolved types are cached per class
+        ConcurrentMap<ResolutionKey, Object> resolved = RESOLVED_TYPES.get(clazz);
+        ResolutionKey key = new ResolutionKey(genericClazz, name, recursive);
+        Object type = resolved.get(key);
+        if (type==null) {
+            type = getSnapshotTypeVariableClass(clazz, genericClazz, name, recursive);
+            if (type==null) {
+                type = resolveTypeVariableClassByName(clazz, genericClazz, name, recursive);
+            }
+            resolved.putIfAbsent(key, (type!=null) ? type : NOT_FOUND);
+        }
+        return (type!=NOT_FOUND) ? (Class<?>)type : null;
+    }
+    
+    /**
+     * Returns a full description of the type bound to the type
+     * variable of the given name, including any nested type
+     * arguments and array component types, where
+     * {@link #getTypeVariableClassByName(Class, Type, String, Boolean)}
+     * only returns the raw class.  The whole hierarchy of the
+     * class is searched.
+     * @param clazz the class
+     * @param genericClazz the generic class or interface declaring
+     * the type variable, or null for any
+     * @param name the name of the type variable
+     * @return the type, or null if the variable isn't bound
+     */
+    public static ResolvedType getTypeVariableType(
+        Class<?> clazz, Class<?> genericClazz, String name) {
+        ConcurrentMap<ResolutionKey, Object> resolved = RESOLVED_DESCRIPTORS.get(clazz);
+        ResolutionKey key = new ResolutionKey(genericClazz, name, Boolean.TRUE);
+        Object type = resolved.get(key);
+        if (type==null) {
+            TypeVariableResolver resolver = TypeVariableResolver.forClass(clazz);
+            Type bound = (genericClazz==null)
+                ? resolver.getType(name)
+                : resolver.getType(genericClazz, name);
+            type = (bound!=null) ? ResolvedType.forType(bound, clazz) : NOT_FOUND;
+            resolved.putIfAbsent(key, type);
+        }
+        return (type!=NOT_FOUND) ? (ResolvedType)type : null;
+    }
+    
+    /**
+     * Loads a snapshot previously written with {@link #writeSnapshot(File)}.
+     * Type variables found in the snapshot are no longer resolved
+     * through reflection, as long as the classes involved haven't
+     * changed since the snapshot was written.  The file is read
+     * completely before any of it is used, so a snapshot is never
+     * partly applied; if it can't be read then the previously
+     * loaded snapshot, if any, is discarded as well and every type
+     * variable is resolved through reflection.
+     * @param file the snapshot file
+     * @throws IOException if the file can't be read
+     */
+    public static void loadSnapshot(File file)
+        throws IOException {
+        try {
+            snapshot = TypeResolutionSnapshot.read(file);
+        } catch (IOException ioe) {
+            snapshot = null;
+            throw ioe;
+        }
+    }
+    
+    /**
+     * Writes all of the type variables resolved so far
+     * to the given file, see {@link #loadSnapshot(File)}.
+     * @param file the snapshot file
+     * @throws IOException on error
+     */
+    public static void writeSnapshot(File file)
+        throws IOException {
+        List<TypeResolutionSnapshot.Entry> entries = new ArrayList<TypeResolutionSnapshot.Entry>();
+        for (Map.Entry<Class<?>, ConcurrentMap<ResolutionKey, Object>> classEntry
+            : RESOLVED_TYPES.entries().entrySet()) {
+            for (Map.Entry<ResolutionKey, Object> entry : classEntry.getValue().entrySet()) {
+                ResolutionKey key = entry.getKey();
+                if (key.genericClazz==null || key.genericClazz instanceof Class) {
+                    TypeResolutionSnapshot.Entry snapshotEntry = TypeResolutionSnapshot.createEntry(
+                        classEntry.getKey(), (Class<?>)key.genericClazz, key.name, key.recursive,
+                        (entry.getValue()!=NOT_FOUND) ? (Class<?>)entry.getValue() : null);
+                    if (snapshotEntry!=null) {
+                        entries.add(snapshotEntry);
+                    }
+                }
+            }
+        }
+        TypeResolutionSnapshot.write(file, entries);
+    }
+    
+    /**
+     * Returns the class for the type variable from the loaded
+     * snapshot, {@link #NOT_FOUND} if the snapshot recorded that
+     * there is none, or null if the snapshot can't tell.
+     * @param clazz the class
+     * @param genericClazz the generic class or interface to check the type for
+     * @param name the name of the type variable
+     * @param recursive whether or not to recurse
+     * @return the class, {@link #NOT_FOUND} or null
+     */
+    private static Object getSnapshotTypeVariableClass(
+        Class<?> clazz, Type genericClazz, String name, Boolean recursive) {
+        TypeResolutionSnapshot current = snapshot;
+        if (current==null || (genericClazz!=null && !(genericClazz instanceof Class))) {
+            return null;
+        }
+        TypeResolutionSnapshot.Entry entry = current.get(clazz, (Class<?>)genericClazz, name, recursive);
+        if (entry==null) {
+            return null;
+        } else if (entry.getResolvedClassName()==null) {
+            return NOT_FOUND;
+        }
+        try {
+            return Class.forName(entry.getResolvedClassName(), false, clazz.getClassLoader());
+        } catch (ClassNotFoundException cnfe) {
+            return null;
+        }
+    }
+    
+    /**
+     * Clears the cache of resolved type variables.
+     */
+    public static void clearCache() {
+        RESOLVED_TYPES.clear();
+        RESOLVED_DESCRIPTORS.clear();
+        GENERIC_SUPERTYPES.clear();
+        TypeVariableResolver.clearCache();
+    }
+    
+    /**
+     * Does the work for {@link #getTypeVariableClassByName(Class, Type, String, Boolean)}
+     * without consulting the cache.
+     * @param clazz the class
+     * @param genericClazz the generic class or interface to check the type for
+     * @param name the name of the type variable
+     * @param recursive whether or not to recurse up the
+     * object's inheritance hierarchy.
+     * @return the class
+     */
+    private static Class<?> resolveTypeVariableClassByName(
+        Class<?> clazz, Type genericClazz, String name, Boolean recursive) {
+        
+        // recursive lookups use the precomputed hierarchy
+        if (recursive && (genericClazz==null || genericClazz instanceof GenericDeclaration)) {
+            TypeVariableResolver resolver = TypeVariableResolver.forClass(clazz);
+            Class<?> resolved = (genericClazz==null)
+                ? resolver.getClass(name)
+                : resolver.getClass((GenericDeclaration)genericClazz, name);
+            
+            // bindings generated at compile time are only checked, a stale one loses
+            if (genericClazz instanceof Class) {
+                GeneratedTypeBindings.confirm(clazz, (Class<?>)genericClazz, name, resolved);
+            }
+            return resolved;
+        }
+        
         // loop through all of the types implemented
-        for (ParameterizedType pType : getGenericTypes(clazz)) {
+        for (ParameterizedType pType : GENERIC_SUPERTYPES.get(clazz).types) {
             
             // do all of them, or one of them
             if (genericClazz==null || genericClazz.equals(pType.getRawType())) {
             
                 // get super class type variables
-                TypeVariable<?>[] typeVars = getGenericTypeParameters(clazz, pType.getRawType());
+                TypeVariable<?>[] typeVars = genericTypeParameters(clazz, pType.getRawType());
                 for (int i=0; i<typeVars.length; i++) {
                     if ((genericClazz==null || genericClazz.equals(typeVars[i].getGenericDeclaration()))
                         && typeVars[i].getName().equals(name)) {
@@ -75,59 +270,104 @@ public abstract class GenericsUtil {
             ? getTypeVariableClassByName(clazz.getSuperclass(), genericClazz, name, recursive) : null;
     }
     
+    /**
+     * Calls the given callback for each of the {@link ParameterizedType}s
+     * implemented by the given class, superclass first.  The
+     * supertypes are cached per class so walking them doesn't
+     * allocate anything.
+     * @param clazz the class
+     * @param callback the callback
+     */
+    public static void forEachGenericSupertype(Class<?> clazz, GenericSupertypeCallback callback) {
+        GenericSupertypes supertypes = GENERIC_SUPERTYPES.get(clazz);
+        for (int i=0; i<supertypes.types.length; i++) {
+            if (!callback.doWith(supertypes.types[i], supertypes.typeVariables[i], supertypes.typeArguments[i])) {
+                return;
+            }
+        }
+    }
+    
     /**
      * Returns all of the {@link ParameterizedType}s implemented
      * by the given class.  If none are implemented then an array
-     * of zero length is returned.
+     * of zero length is returned.  The array is a copy of the
+     * cached one, so callers may modify it, and every call
+     * allocates a new one; use {@link #forEachGenericSupertype}
+     * where allocation matters.
      * @param clazz the class
      * @return an array of ParameterizedType
      */
     public static ParameterizedType[] getGenericTypes(Class<?> clazz) {
-        List<ParameterizedType> types = new ArrayList<ParameterizedType>();
-        
-        // add superclass
-        if (clazz.getGenericSuperclass() instanceof ParameterizedType) {
-            types.add((ParameterizedType)clazz.getGenericSuperclass());
-        }
-        
-        // add interfaces
-        for (Type type : clazz.getGenericInterfaces()) {
-            if (type instanceof ParameterizedType) {
-                types.add((ParameterizedType)type);
-            }
-        }
-        
-        // return list
-        return types.toArray(new ParameterizedType[0]);
+        return GENERIC_SUPERTYPES.get(clazz).types.clone();
     }
     
     /**
      * Returns all of the {@link TypeVariables}s implemented
      * by the given class.  If none are implemented then an array
-     * of zero length is returned.
+     * of zero length is returned.  The array is a copy of the
+     * cached one, so callers may modify it, and every call
+     * allocates a new one; use {@link #forEachGenericSupertype}
+     * where allocation matters.
      * @param clazz the class
      * @return an array of TypeVariable
      */
     public static TypeVariable<?>[] getGenericTypeParameters(Class<?> clazz) {
-        return getGenericTypeParameters(clazz);
+        return genericTypeParameters(clazz, null).clone();
     }
     
     /**
      * Returns all of the {@link TypeVariables}s implemented
      * by the given class.  If none are implemented then an array
-     * of zero length is returned.
+     * of zero length is returned.  The array is a copy of the
+     * cached one, so callers may modify it, and every call
+     * allocates a new one; use {@link #forEachGenericSupertype}
+     * where allocation matters.
      * @param clazz the class
      * @param genericClazz the generic class or interface to return
      * the TypeVariables from
      * @return an array of TypeVariable
      */
     public static TypeVariable<?>[] getGenericTypeParameters(Class<?> clazz, Type genericClazz) {
+        return genericTypeParameters(clazz, genericClazz).clone();
+    }
+    
+    /**
+     * Returns the cached {@link TypeVariable}s for
+     * {@link #getGenericTypeParameters(Class, Type)}, the
+     * array is shared and must not be modified.
+     * @param clazz the class
+     * @param genericClazz the generic class or interface to return
+     * the TypeVariables from, or null for all of them
+     * @return an array of TypeVariable
+     */
+    private static TypeVariable<?>[] genericTypeParameters(Class<?> clazz, Type genericClazz) {
+        ConcurrentMap<Type, TypeVariable<?>[]> parameters = GENERIC_SUPERTYPES.get(clazz).parameters;
+        Type key = (genericClazz!=null) ? genericClazz : ALL_PARAMETERS;
+        TypeVariable<?>[] vars = parameters.get(key);
+        if (vars==null) {
+            vars = collectGenericTypeParameters(clazz, genericClazz);
+            parameters.putIfAbsent(key, vars);
+        }
+        return vars;
+    }
+    
+    /**
+     * Does the work for {@link #getGenericTypeParameters(Class, Type)}
+     * without consulting the cache.
+     * @param clazz the class
+     * @param genericClazz the generic class or interface to return
+     * the TypeVariables from
+     * @return an array of TypeVariable
+     */
+    private static TypeVariable<?>[] collectGenericTypeParameters(Class<?> clazz, Type genericClazz) {
         List<TypeVariable<?>> vars = new ArrayList<TypeVariable<?>>();
         
         // add superclass
-        for (TypeVariable<?> var : clazz.getSuperclass().getTypeParameters()) {
-            if (genericClazz==null || genericClazz.equals(var.getGenericDeclaration())) {
-                vars.add(var);
+        if (clazz.getSuperclass()!=null) {
+            for (TypeVariable<?> var : clazz.getSuperclass().getTypeParameters()) {
+                if (genericClazz==null || genericClazz.equals(var.getGenericDeclaration())) {
+                    vars.add(var);
+                }
             }
         }
         
@@ -141,7 +381,93 @@ public abstract class GenericsUtil {
         }
         
         // return list
-        return vars.toArray(new TypeVariable<?>[0]);
+        return vars.toArray(new TypeVariable<?>[vars.size()]);
+    }
+    
+    /**
+     * The generic supertypes of a class.
+     */
+    private static final class GenericSupertypes {
+        
+        private final ParameterizedType[] types;
+        private final TypeVariable<?>[][] typeVariables;
+        private final Type[][] typeArguments;
+        private final ConcurrentMap<Type, TypeVariable<?>[]> parameters
+            = new ConcurrentHashMap<Type, TypeVariable<?>[]>();
+        
+        /**
+         * Creates the GenericSupertypes.
+         * @param clazz the class
+         */
+        GenericSupertypes(Class<?> clazz) {
+            List<ParameterizedType> list = new ArrayList<ParameterizedType>();
+            
+            // add superclass
+            if (clazz.getGenericSuperclass() instanceof ParameterizedType) {
+                list.add((ParameterizedType)clazz.getGenericSuperclass());
+            }
+            
+            // add interfaces
+            for (Type type : clazz.getGenericInterfaces()) {
+                if (type instanceof ParameterizedType) {
+                    list.add((ParameterizedType)type);
+                }
+            }
+            
+            this.types          = list.toArray(new ParameterizedType[list.size()]);
+            this.typeVariables  = new TypeVariable<?>[types.length][];
+            this.typeArguments  = new Type[types.length][];
+            for (int i=0; i<types.length; i++) {
+                typeVariables[i] = ((Class<?>)types[i].getRawType()).getTypeParameters();
+                typeArguments[i] = types[i].getActualTypeArguments();
+            }
+        }
+    }
+    
+    /**
+     * Key for a resolved type variable of a given class.
+     */
+    private static final class ResolutionKey {
+        
+        private final Type genericClazz;
+        private final String name;
+        private final boolean recursive;
+        
+        /**
+         * Creates the ResolutionKey.
+         * @param genericClazz the generic class or interface, or null
+         * @param name the name of the type variable
+         * @param recursive whether or not the lookup was recursive
+         */
+        ResolutionKey(Type genericClazz, String name, Boolean recursive) {
+            this.genericClazz = genericClazz;
+            this.name = name;
+            this.recursive = recursive.booleanValue();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            int hash = (genericClazz!=null) ? genericClazz.hashCode() : 0;
+            hash = 31*hash + ((name!=null) ? name.hashCode() : 0);
+            return 31*hash + (recursive ? 1 : 0);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ResolutionKey)) {
+                return false;
+            }
+            ResolutionKey other = (ResolutionKey)obj;
+            return recursive==other.recursive
+                && (genericClazz==null ? other.genericClazz==null : genericClazz.equals(other.genericClazz))
+                && (name==null ? other.name==null : name.equals(other.name));
+        }
     }
     
 }
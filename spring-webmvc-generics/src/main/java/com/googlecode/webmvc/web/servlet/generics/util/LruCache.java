@@ -0,0 +1,236 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ *  A thread safe cache of values computed lazily per key that
+ *  holds at most a given number of values, evicting the least
+ *  recently used values when it is full.  Lookups of values
+ *  already in the cache are lock-free reads from a
+ *  {@link ConcurrentHashMap}.  A hit only stamps the entry with
+ *  the time it was used if it hasn't been used recently, and the
+ *  hits are counted on per thread stripes, so that hot entries
+ *  don't make every thread write to the same memory.
+ * </p>
+ *
+ * <p>
+ *  The (linear) search for the least recently used entries is
+ *  only done when a value is added to a full cache, and it evicts
+ *  an eighth of the values at once so that the next misses don't
+ *  have to search again.  A miss never waits for another thread's
+ *  search.  This suits caches that are read far more often than
+ *  they're added to, ie: caches of parsed configuration, but
+ *  not caches keyed by values that hardly ever repeat: view
+ *  names that embed ids (<code>redirect:/person/123</code>
+ *  rather than <code>redirect:/person/{id}</code>) will thrash
+ *  the cache, with every lookup a miss that evicts.
+ * </p>
+ *
+ * <p>
+ *  The number of hits and misses is counted.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public abstract class LruCache<K, V> {
+
+    private static final int STRIPES        = 16;
+    private static final int STRIPE_PADDING = 8;
+
+    private final ConcurrentMap<K, Entry<V>> entries;
+    private final int capacity;
+    private final int evictTo;
+    private final long recentWindow;
+    private final Lock evictionLock     = new ReentrantLock();
+    private final AtomicLong clock      = new AtomicLong();
+    private final AtomicLong missCount  = new AtomicLong();
+    private final AtomicLongArray hitCounts
+        = new AtomicLongArray(STRIPES*STRIPE_PADDING);
+
+    /**
+     * Creates the LruCache.
+     * @param capacity the maximum number of values to hold
+     * @throws IllegalArgumentException if the capacity
+     * isn't positive
+     */
+    public LruCache(int capacity) {
+        if (capacity<=0) {
+            throw new IllegalArgumentException("capacity must be positive: "+capacity);
+        }
+        this.capacity = capacity;
+        this.evictTo = capacity-(capacity>>3);
+        this.recentWindow = capacity>>1;
+        this.entries = new ConcurrentHashMap<K, Entry<V>>(Math.min(capacity, 1024)*4/3+1);
+    }
+
+    /**
+     * Computes the value for the given key.  This may be called
+     * concurrently by several threads for the same key, in which
+     * case only the first value stored is kept.
+     * @param key the key
+     * @return the value, or null if there isn't one (which
+     * isn't cached)
+     */
+    protected abstract V computeValue(K key);
+
+    /**
+     * Returns the value for the given key, computing
+     * it if it isn't in the cache.
+     * @param key the key
+     * @return the value, or null
+     */
+    public V get(K key) {
+
+        // the fast path, an entry stamped within the last half
+        // capacity ticks can't be the least recently used one
+        Entry<V> entry = entries.get(key);
+        if (entry!=null) {
+            hitCounts.incrementAndGet(stripe());
+            if (entry.lastUsed<=clock.get()-recentWindow) {
+                entry.lastUsed = clock.incrementAndGet();
+            }
+            return entry.value;
+        }
+
+        // compute and store it
+        missCount.incrementAndGet();
+        V value = computeValue(key);
+        if (value==null) {
+            return null;
+        }
+        Entry<V> existing = entries.putIfAbsent(key, new Entry<V>(value, clock.incrementAndGet()));
+        if (existing!=null) {
+            return existing.value;
+        }
+        if (entries.size()>capacity) {
+            evict();
+        }
+        return value;
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache is
+     * an eighth below capacity, unless another thread already is.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (entries.size()<=capacity) {
+                return;
+            }
+
+            // find the stamp of the newest entry to evict
+            long[] stamps = new long[entries.size()];
+            int count = 0;
+            for (Entry<V> entry : entries.values()) {
+                if (count==stamps.length) {
+                    break;
+                }
+                stamps[count++] = entry.lastUsed;
+            }
+            int evictCount = count-evictTo;
+            if (evictCount<=0) {
+                return;
+            }
+            Arrays.sort(stamps, 0, count);
+            long newest = stamps[evictCount-1];
+
+            // and evict everything up to it
+            for (Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+                if (evictCount==0) {
+                    break;
+                }
+                if (candidate.getValue().lastUsed<=newest
+                    && entries.remove(candidate.getKey(), candidate.getValue())) {
+                    evictCount--;
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the hit counter stripe of the current thread,
+     * the stripes are padded to keep them on separate
+     * cache lines.
+     * @return the index of the stripe
+     */
+    private static int stripe() {
+        return (int)(Thread.currentThread().getId()%STRIPES)*STRIPE_PADDING;
+    }
+
+    /**
+     * Removes all values from the cache, the
+     * counters aren't reset.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of values in the cache
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the maximum number of values in the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of lookups that found their value
+     * in the cache
+     */
+    public long getHitCount() {
+        long hits = 0;
+        for (int i=0; i<STRIPES; i++) {
+            hits += hitCounts.get(i*STRIPE_PADDING);
+        }
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that had to compute
+     * their value
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * A cached value and when it was last used.
+     * @param <V> the type of the value
+     */
+    private static final class Entry<V> {
+
+        private final V value;
+        private volatile long lastUsed;
+
+        /**
+         * Creates the Entry.
+         * @param value the value
+         * @param lastUsed when it was last used
+         */
+        Entry(V value, long lastUsed) {
+            this.value = value;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+}
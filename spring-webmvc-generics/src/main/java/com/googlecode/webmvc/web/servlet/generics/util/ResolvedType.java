@@ -0,0 +1,344 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * <p>
+ *  An immutable description of a fully resolved generic type,
+ *  including its nested type arguments and array component type.
+ *  For instance a command bound as <code>List&lt;Long&gt;</code>
+ *  is described as the raw class <code>List</code> with a single
+ *  generic <code>Long</code>, rather than just <code>List</code>.
+ * </p>
+ *
+ * <p>
+ *  Type variables are resolved against the class the type was
+ *  obtained from, see
+ *  {@link GenericsUtil#getTypeVariableType(Class, Class, String)}.
+ *  Variables that can't be resolved are described by their
+ *  first bound's raw class.
+ * </p>
+ */
+public final class ResolvedType {
+
+    private static final ResolvedType[] NO_GENERICS = new ResolvedType[0];
+
+    private final Type type;
+    private final Class<?> rawClass;
+    private final ResolvedType[] generics;
+    private final ResolvedType componentType;
+
+    /**
+     * Creates the ResolvedType.
+     * @param type the type described
+     * @param rawClass the raw class
+     * @param generics the resolved type arguments
+     * @param componentType the resolved component type, or null
+     */
+    private ResolvedType(Type type, Class<?> rawClass, ResolvedType[] generics, ResolvedType componentType) {
+        this.type = type;
+        this.rawClass = rawClass;
+        this.generics = generics;
+        this.componentType = componentType;
+    }
+
+    /**
+     * Describes the given class.
+     * @param clazz the class
+     * @return the type
+     */
+    public static ResolvedType forClass(Class<?> clazz) {
+        return forType(clazz, null);
+    }
+
+    /**
+     * Describes the given type, resolving any type variables
+     * against the hierarchy of the given class.
+     * @param type the type
+     * @param owner the class the type was declared in, or
+     * a subclass of it
+     * @return the type
+     */
+    public static ResolvedType forType(Type type, Class<?> owner) {
+        final TypeVariableResolver resolver = (owner!=null)
+            ? TypeVariableResolver.forClass(owner) : null;
+        return forType(type, new Variables() {
+            public ResolvedType resolve(TypeVariable<?> var, int depth) {
+                Type resolved = null;
+                if (resolver!=null && var.getGenericDeclaration() instanceof Class) {
+                    resolved = resolver.getType((Class<?>)var.getGenericDeclaration(), var.getName());
+                }
+                return (resolved!=null) ? forType(resolved, this, depth+1) : null;
+            }
+        }, 0);
+    }
+
+    /**
+     * Describes the given type, resolving type variables
+     * with the given variables.
+     * @param type the type
+     * @param variables the variables
+     * @param depth the nesting depth, guards against
+     * self referencing types
+     * @return the type
+     */
+    private static ResolvedType forType(Type type, Variables variables, int depth) {
+        if (depth>32) {
+            Class<?> rawClass = TypeVariableResolver.getRawClass(type);
+            return new ResolvedType(type, (rawClass!=null) ? rawClass : Object.class, NO_GENERICS, null);
+        }
+
+        // plain classes and arrays of them
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>)type;
+            return new ResolvedType(type, clazz, NO_GENERICS,
+                clazz.isArray() ? forType(clazz.getComponentType(), variables, depth+1) : null);
+
+        // resolve all of the type arguments
+        } else if (type instanceof ParameterizedType) {
+            Type[] args = ((ParameterizedType)type).getActualTypeArguments();
+            ResolvedType[] resolved = new ResolvedType[args.length];
+            for (int i=0; i<args.length; i++) {
+                resolved[i] = forType(args[i], variables, depth+1);
+            }
+            return new ResolvedType(type, (Class<?>)((ParameterizedType)type).getRawType(), resolved, null);
+
+        // generic arrays
+        } else if (type instanceof GenericArrayType) {
+            ResolvedType component = forType(
+                ((GenericArrayType)type).getGenericComponentType(), variables, depth+1);
+            return new ResolvedType(type,
+                Array.newInstance(component.getRawClass(), 0).getClass(), NO_GENERICS, component);
+
+        // type variables, or their bound
+        } else if (type instanceof TypeVariable) {
+            TypeVariable<?> var = (TypeVariable<?>)type;
+            ResolvedType resolved = variables.resolve(var, depth);
+            return (resolved!=null)
+                ? resolved
+                : forBound(var.getBounds(), variables, depth);
+
+        // wildcards use their upper bound
+        } else if (type instanceof WildcardType) {
+            return forBound(((WildcardType)type).getUpperBounds(), variables, depth);
+        }
+
+        return new ResolvedType(type, Object.class, NO_GENERICS, null);
+    }
+
+    /**
+     * Describes the first of the given bounds.
+     * @param bounds the bounds
+     * @param variables the variables
+     * @param depth the nesting depth
+     * @return the type
+     */
+    private static ResolvedType forBound(Type[] bounds, Variables variables, int depth) {
+        return (bounds.length>0)
+            ? forType(bounds[0], variables, depth+1)
+            : new ResolvedType(Object.class, Object.class, NO_GENERICS, null);
+    }
+
+    /**
+     * Returns this type as the given supertype with its type
+     * arguments resolved, or null if it isn't a subtype of it.
+     * For instance <code>ArrayList&lt;Long&gt;</code> as
+     * <code>Collection</code> is <code>Collection&lt;Long&gt;</code>.
+     * @param supertype the supertype
+     * @return the type
+     */
+    public ResolvedType as(Class<?> supertype) {
+        if (rawClass.equals(supertype)) {
+            return this;
+        } else if (!supertype.isAssignableFrom(rawClass)) {
+            return null;
+        }
+
+        // this type's variables are bound to its generics
+        final TypeVariable<?>[] vars = rawClass.getTypeParameters();
+        Variables variables = new Variables() {
+            public ResolvedType resolve(TypeVariable<?> var, int depth) {
+                for (int i=0; i<vars.length && i<generics.length; i++) {
+                    if (vars[i].equals(var)) {
+                        return generics[i];
+                    }
+                }
+                return null;
+            }
+        };
+
+        // find the supertype
+        if (rawClass.getGenericSuperclass()!=null) {
+            ResolvedType resolved = forType(rawClass.getGenericSuperclass(), variables, 0).as(supertype);
+            if (resolved!=null) {
+                return resolved;
+            }
+        }
+        for (Type iface : rawClass.getGenericInterfaces()) {
+            ResolvedType resolved = forType(iface, variables, 0).as(supertype);
+            if (resolved!=null) {
+                return resolved;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Describes the given type, ie: the type of a property, as it is
+     * seen from this type.  Type variables declared by this type's
+     * raw class or one of its supertypes are resolved with this
+     * type's type arguments, for instance a property declared as
+     * <code>List&lt;I&gt;</code> in <code>Command&lt;I&gt;</code> is
+     * a <code>List&lt;Long&gt;</code> from <code>Command&lt;Long&gt;</code>.
+     * @param member the type, declared in this type's raw class or
+     * one of its supertypes
+     * @return the type
+     */
+    public ResolvedType resolve(Type member) {
+        final TypeVariableResolver resolver = TypeVariableResolver.forClass(rawClass);
+        return forType(member, new Variables() {
+            public ResolvedType resolve(TypeVariable<?> var, int depth) {
+                if (!(var.getGenericDeclaration() instanceof Class)) {
+                    return null;
+                }
+
+                // bound by this type's type arguments
+                Class<?> declaration = (Class<?>)var.getGenericDeclaration();
+                ResolvedType declaring = as(declaration);
+                if (declaring!=null && declaring.hasGenerics()) {
+                    TypeVariable<?>[] vars = declaration.getTypeParameters();
+                    for (int i=0; i<vars.length && i<declaring.generics.length; i++) {
+                        if (vars[i].equals(var)) {
+                            return declaring.generics[i];
+                        }
+                    }
+                }
+
+                // or by the raw class' hierarchy
+                Type resolved = resolver.getType(declaration, var.getName());
+                return (resolved!=null) ? forType(resolved, this, depth+1) : null;
+            }
+        }, 0);
+    }
+
+    /**
+     * Returns the element type of a {@link Collection} or
+     * array, or null if this is neither or it is unknown.
+     * @return the element type
+     */
+    public ResolvedType getElementType() {
+        if (componentType!=null) {
+            return componentType;
+        }
+        ResolvedType collection = as(Collection.class);
+        return (collection!=null && collection.hasGenerics()) ? collection.getGeneric(0) : null;
+    }
+
+    /**
+     * Returns the key type of a {@link Map}, or null
+     * if this isn't a map or it is unknown.
+     * @return the key type
+     */
+    public ResolvedType getMapKeyType() {
+        ResolvedType map = as(Map.class);
+        return (map!=null && map.hasGenerics()) ? map.getGeneric(0) : null;
+    }
+
+    /**
+     * Returns the value type of a {@link Map}, or null
+     * if this isn't a map or it is unknown.
+     * @return the value type
+     */
+    public ResolvedType getMapValueType() {
+        ResolvedType map = as(Map.class);
+        return (map!=null && map.getGenericCount()>1) ? map.getGeneric(1) : null;
+    }
+
+    /**
+     * @return the type described
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the raw class
+     */
+    public Class<?> getRawClass() {
+        return rawClass;
+    }
+
+    /**
+     * @return whether or not there are type arguments
+     */
+    public boolean hasGenerics() {
+        return generics.length>0;
+    }
+
+    /**
+     * @return the number of type arguments
+     */
+    public int getGenericCount() {
+        return generics.length;
+    }
+
+    /**
+     * Returns the resolved type argument at the given index.
+     * @param index the index
+     * @return the type argument
+     */
+    public ResolvedType getGeneric(int index) {
+        return generics[index];
+    }
+
+    /**
+     * @return whether or not this is an array type
+     */
+    public boolean isArray() {
+        return componentType!=null;
+    }
+
+    /**
+     * @return the resolved component type of an array type, or null
+     */
+    public ResolvedType getComponentType() {
+        return componentType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        if (componentType!=null) {
+            return componentType+"[]";
+        }
+        StringBuilder buff = new StringBuilder(rawClass.getName());
+        for (int i=0; i<generics.length; i++) {
+            buff.append((i==0) ? "<" : ", ").append(generics[i]);
+        }
+        return (generics.length>0) ? buff.append(">").toString() : buff.toString();
+    }
+
+    /**
+     * Resolves type variables.
+     */
+    private interface Variables {
+
+        /**
+         * Resolves the given variable.
+         * @param var the variable
+         * @param depth the current nesting depth
+         * @return the type bound to it, or null if it isn't bound
+         */
+        ResolvedType resolve(TypeVariable<?> var, int depth);
+    }
+
+}
@@ -0,0 +1,330 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ *  A snapshot of resolved type variables that can be written to
+ *  disk and read back on the next startup so that the bindings
+ *  don't have to be derived again.  See
+ *  {@link GenericsUtil#writeSnapshot(File)} and
+ *  {@link GenericsUtil#loadSnapshot(File)}.
+ * </p>
+ *
+ * <p>
+ *  Every entry carries a fingerprint of the class files it was
+ *  derived from (their size and modification time), which are
+ *  the class and all of its superclasses and interfaces.  Entries
+ *  whose fingerprint no longer matches are ignored and the type
+ *  is resolved through reflection instead.
+ * </p>
+ */
+public final class TypeResolutionSnapshot {
+
+    private static final int MAGIC      = 0x57474753;
+    private static final int VERSION    = 2;
+    private static final String CHARSET = "UTF-8";
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates the TypeResolutionSnapshot.
+     * @param entries the entries keyed by {@link Entry#getKey()}
+     */
+    private TypeResolutionSnapshot(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Reads a snapshot from the given file.
+     * @param file the file
+     * @return the snapshot
+     * @throws IOException if the file can't be read or isn't a snapshot
+     */
+    public static TypeResolutionSnapshot read(File file)
+        throws IOException {
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt()!=MAGIC || in.readShort()!=VERSION) {
+                throw new IOException(file+" is not a type resolution snapshot");
+            }
+            int count = in.readInt();
+            Map<String, Entry> entries = new HashMap<String, Entry>(count*2);
+            for (int i=0; i<count; i++) {
+                Entry entry = new Entry(
+                    readString(in), readString(in), readString(in),
+                    in.readByte()!=0, readString(in), in.readLong());
+                entries.put(entry.getKey(), entry);
+            }
+            return new TypeResolutionSnapshot(entries);
+        } catch (EOFException eofe) {
+            throw new IOException(file+" is truncated");
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the given entries to the given file.  The file is
+     * written next to the target and then renamed so that a
+     * concurrently starting node never sees a partial snapshot.
+     * @param file the file
+     * @param entries the entries
+     * @throws IOException on error
+     */
+    static void write(File file, Collection<Entry> entries)
+        throws IOException {
+        File tmp = new File(file.getPath()+".tmp");
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                writeString(out, entry.className);
+                writeString(out, entry.declarationName);
+                writeString(out, entry.variableName);
+                out.writeByte(entry.recursive ? 1 : 0);
+                writeString(out, entry.resolvedClassName);
+                out.writeLong(entry.fingerprint);
+            }
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+            throw new IOException("Unable to rename "+tmp+" to "+file);
+        }
+    }
+
+    /**
+     * Returns the entry for the given lookup if there is one and
+     * it is still valid for the given classes.
+     * @param clazz the class
+     * @param genericClazz the generic class or interface, or null
+     * @param name the name of the type variable
+     * @param recursive whether or not the lookup was recursive
+     * @return the entry or null
+     */
+    Entry get(Class<?> clazz, Class<?> genericClazz, String name, boolean recursive) {
+        Entry entry = entries.get(key(
+            clazz.getName(), (genericClazz!=null) ? genericClazz.getName() : "", name, recursive));
+        return (entry!=null && entry.fingerprint==fingerprint(clazz, genericClazz))
+            ? entry : null;
+    }
+
+    /**
+     * Returns the number of entries in the snapshot.
+     * @return the size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Creates an entry, or returns null if the given
+     * classes can't be fingerprinted.
+     * @param clazz the class
+     * @param genericClazz the generic class or interface, or null
+     * @param name the name of the type variable
+     * @param recursive whether or not the lookup was recursive
+     * @param resolved the resolved class, or null
+     * @return the entry
+     */
+    static Entry createEntry(
+        Class<?> clazz, Class<?> genericClazz, String name, boolean recursive, Class<?> resolved) {
+        long fingerprint = fingerprint(clazz, genericClazz);
+        if (fingerprint==0) {
+            return null;
+        }
+        return new Entry(
+            clazz.getName(), (genericClazz!=null) ? genericClazz.getName() : "", name,
+            recursive, (resolved!=null) ? resolved.getName() : "", fingerprint);
+    }
+
+    /**
+     * Returns the combined fingerprint of the given class, all of
+     * its superclasses and interfaces, and the given generic class,
+     * so that a change to any class on the path from the class to
+     * the generic class invalidates the entry.
+     * @param clazz the class
+     * @param genericClazz the generic class or interface, or null
+     * @return the fingerprint, 0 if unknown
+     */
+    private static long fingerprint(Class<?> clazz, Class<?> genericClazz) {
+        Set<Class<?>> visited = new HashSet<Class<?>>();
+        long fingerprint = fingerprintHierarchy(clazz, 1, visited);
+        if (fingerprint==0 || genericClazz==null || visited.contains(genericClazz)) {
+            return fingerprint;
+        }
+        long other = fingerprint(genericClazz);
+        return (other!=0) ? 31*fingerprint+other : 0;
+    }
+
+    /**
+     * Combines the given fingerprint with those of the given class
+     * and all of its superclasses and interfaces not yet visited.
+     * @param clazz the class, or null
+     * @param fingerprint the fingerprint so far
+     * @param visited the classes already fingerprinted
+     * @return the fingerprint, 0 if unknown
+     */
+    private static long fingerprintHierarchy(Class<?> clazz, long fingerprint, Set<Class<?>> visited) {
+        if (clazz==null || fingerprint==0 || !visited.add(clazz)) {
+            return fingerprint;
+        }
+        long own = fingerprint(clazz);
+        if (own==0) {
+            return 0;
+        }
+        fingerprint = fingerprintHierarchy(clazz.getSuperclass(), 31*fingerprint+own, visited);
+        for (Class<?> iface : clazz.getInterfaces()) {
+            fingerprint = fingerprintHierarchy(iface, fingerprint, visited);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns a fingerprint of the class file the given class was
+     * loaded from, based on the size and modification time of the
+     * class file, or of the jar containing it.
+     * @param clazz the class
+     * @return the fingerprint, 0 if unknown
+     */
+    private static long fingerprint(Class<?> clazz) {
+        if (clazz.getClassLoader()==null) {
+            return System.getProperty("java.version").hashCode() | 1L;
+        }
+
+        // find the file
+        String name = clazz.getName();
+        URL url = clazz.getResource(name.substring(name.lastIndexOf('.')+1)+".class");
+        if (url==null) {
+            return 0;
+        }
+        File file;
+        try {
+            if ("file".equals(url.getProtocol())) {
+                file = new File(url.toURI());
+            } else if ("jar".equals(url.getProtocol()) && url.getPath().startsWith("file:")) {
+                String path = url.getPath();
+                int separator = path.indexOf("!/");
+                file = new File(new URL((separator!=-1) ? path.substring(0, separator) : path).toURI());
+            } else {
+                return 0;
+            }
+        } catch (URISyntaxException use) {
+            return 0;
+        } catch (IOException ioe) {
+            return 0;
+        } catch (IllegalArgumentException iae) {
+            return 0;
+        }
+
+        // and stamp it
+        long modified = file.lastModified();
+        return (modified!=0) ? (31*modified+file.length()) | 1L : 0;
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string.
+     * @param in the input
+     * @return the string
+     * @throws IOException on error
+     */
+    private static String readString(DataInputStream in)
+        throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    /**
+     * Writes a length prefixed UTF-8 string.
+     * @param out the output
+     * @param value the string
+     * @throws IOException on error
+     */
+    private static void writeString(DataOutputStream out, String value)
+        throws IOException {
+        byte[] bytes = value.getBytes(CHARSET);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Builds the key of an entry.
+     * @param className the class name
+     * @param declarationName the generic class name, or ""
+     * @param variableName the type variable name
+     * @param recursive whether or not the lookup was recursive
+     * @return the key
+     */
+    private static String key(
+        String className, String declarationName, String variableName, boolean recursive) {
+        return className+" "+declarationName+" "+variableName+" "+recursive;
+    }
+
+    /**
+     * A resolved type variable.
+     */
+    static final class Entry {
+
+        private final String className;
+        private final String declarationName;
+        private final String variableName;
+        private final boolean recursive;
+        private final String resolvedClassName;
+        private final long fingerprint;
+
+        /**
+         * Creates the Entry.
+         * @param className the class name
+         * @param declarationName the generic class name, or ""
+         * @param variableName the type variable name
+         * @param recursive whether or not the lookup was recursive
+         * @param resolvedClassName the resolved class name, or ""
+         * @param fingerprint the fingerprint
+         */
+        Entry(String className, String declarationName, String variableName,
+            boolean recursive, String resolvedClassName, long fingerprint) {
+            this.className = className;
+            this.declarationName = declarationName;
+            this.variableName = variableName;
+            this.recursive = recursive;
+            this.resolvedClassName = resolvedClassName;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * @return the key of the entry
+         */
+        String getKey() {
+            return key(className, declarationName, variableName, recursive);
+        }
+
+        /**
+         * @return the resolved class name, or null if nothing was resolved
+         */
+        String getResolvedClassName() {
+            return (resolvedClassName.length()>0) ? resolvedClassName : null;
+        }
+    }
+
+}
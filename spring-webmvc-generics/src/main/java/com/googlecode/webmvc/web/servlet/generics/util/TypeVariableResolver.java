@@ -0,0 +1,234 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * <p>
+ *  An immutable table of every type variable bound in a class's
+ *  inheritance hierarchy, built by walking all of the superclasses
+ *  and interfaces of the class exactly once.  Type variables that
+ *  are bound to another type variable (ie: <code>class Foo&lt;X&gt;
+ *  extends Bar&lt;X&gt;</code>) are followed to the concrete type
+ *  further down the hierarchy.
+ * </p>
+ *
+ * <p>
+ *  Tables are cached per class, see {@link #forClass(Class)}, so
+ *  all lookups after the first one are constant time.
+ * </p>
+ */
+public final class TypeVariableResolver {
+
+    private static final ClassCache<TypeVariableResolver> RESOLVERS
+        = new ClassCache<TypeVariableResolver>() {
+            @Override
+            protected TypeVariableResolver computeValue(Class<?> clazz) {
+                return new TypeVariableResolver(clazz);
+            }
+        };
+
+    private final Map<VariableKey, Type> types;
+    private final Map<String, Type> typesByName;
+
+    /**
+     * Returns the (cached) TypeVariableResolver for the given class.
+     * @param clazz the class
+     * @return the resolver
+     */
+    public static TypeVariableResolver forClass(Class<?> clazz) {
+        return RESOLVERS.get(clazz);
+    }
+
+    /**
+     * Clears the cache of resolvers.
+     */
+    public static void clearCache() {
+        RESOLVERS.clear();
+    }
+
+    /**
+     * Creates the TypeVariableResolver by walking the hierarchy
+     * of the given class.  The superclass chain is visited first,
+     * nearest superclass first, followed by the interfaces
+     * in the order they were encountered.
+     * @param clazz the class
+     */
+    private TypeVariableResolver(Class<?> clazz) {
+        Map<VariableKey, Type> resolved = new HashMap<VariableKey, Type>();
+        Map<String, Type> resolvedByName = new HashMap<String, Type>();
+
+        // superclasses first, then interfaces
+        LinkedList<Class<?>> interfaces = new LinkedList<Class<?>>();
+        for (Class<?> c = clazz; c!=null && !c.equals(Object.class); c = c.getSuperclass()) {
+            bind(c.getGenericSuperclass(), resolved, resolvedByName);
+            for (Type type : c.getGenericInterfaces()) {
+                bind(type, resolved, resolvedByName);
+            }
+            Collections.addAll(interfaces, c.getInterfaces());
+        }
+        while (!interfaces.isEmpty()) {
+            Class<?> iface = interfaces.removeFirst();
+            for (Type type : iface.getGenericInterfaces()) {
+                bind(type, resolved, resolvedByName);
+            }
+            Collections.addAll(interfaces, iface.getInterfaces());
+        }
+
+        this.types          = resolved;
+        this.typesByName    = resolvedByName;
+    }
+
+    /**
+     * Records the type arguments of the given supertype,
+     * if it is a {@link ParameterizedType}.
+     * @param supertype the supertype
+     * @param resolved the types resolved so far
+     * @param resolvedByName the types resolved so far by name
+     */
+    private static void bind(
+        Type supertype, Map<VariableKey, Type> resolved, Map<String, Type> resolvedByName) {
+        if (!(supertype instanceof ParameterizedType)) {
+            return;
+        }
+        ParameterizedType pType = (ParameterizedType)supertype;
+        TypeVariable<?>[] typeVars = ((Class<?>)pType.getRawType()).getTypeParameters();
+        Type[] args = pType.getActualTypeArguments();
+        for (int i=0; i<typeVars.length && i<args.length; i++) {
+            VariableKey key = new VariableKey(typeVars[i].getGenericDeclaration(), typeVars[i].getName());
+            if (resolved.containsKey(key)) {
+                continue;
+            }
+
+            // follow variables bound to variables
+            Type type = args[i];
+            if (type instanceof TypeVariable) {
+                TypeVariable<?> var = (TypeVariable<?>)type;
+                type = resolved.get(new VariableKey(var.getGenericDeclaration(), var.getName()));
+                if (type==null) {
+                    continue;
+                }
+            }
+
+            resolved.put(key, type);
+            if (!resolvedByName.containsKey(key.name)) {
+                resolvedByName.put(key.name, type);
+            }
+        }
+    }
+
+    /**
+     * Returns the type bound to the given type variable,
+     * or null if it isn't bound in the hierarchy.
+     * @param declaration the class or interface declaring the variable
+     * @param name the name of the type variable
+     * @return the type
+     */
+    public Type getType(GenericDeclaration declaration, String name) {
+        return types.get(new VariableKey(declaration, name));
+    }
+
+    /**
+     * Returns the type bound to the first type variable found
+     * with the given name regardless of where it was declared,
+     * or null if none is bound.
+     * @param name the name of the type variable
+     * @return the type
+     */
+    public Type getType(String name) {
+        return typesByName.get(name);
+    }
+
+    /**
+     * Returns the class bound to the given type variable,
+     * or null if it isn't bound in the hierarchy.
+     * @param declaration the class or interface declaring the variable
+     * @param name the name of the type variable
+     * @return the class
+     * @see #getRawClass(Type)
+     */
+    public Class<?> getClass(GenericDeclaration declaration, String name) {
+        return getRawClass(getType(declaration, name));
+    }
+
+    /**
+     * Returns the class bound to the first type variable found
+     * with the given name regardless of where it was declared,
+     * or null if none is bound.
+     * @param name the name of the type variable
+     * @return the class
+     * @see #getRawClass(Type)
+     */
+    public Class<?> getClass(String name) {
+        return getRawClass(getType(name));
+    }
+
+    /**
+     * Returns the raw class of the given type.  For a
+     * {@link ParameterizedType} this is its raw type and for
+     * a {@link GenericArrayType} this is an array of the raw
+     * component class.  Null is returned for any other
+     * {@link Type} that isn't a {@link Class}.
+     * @param type the type
+     * @return the class
+     */
+    public static Class<?> getRawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>)type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>)((ParameterizedType)type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            Class<?> component = getRawClass(((GenericArrayType)type).getGenericComponentType());
+            return (component!=null) ? Array.newInstance(component, 0).getClass() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Key for a type variable.
+     */
+    private static final class VariableKey {
+
+        private final GenericDeclaration declaration;
+        private final String name;
+
+        /**
+         * Creates the VariableKey.
+         * @param declaration the declaration
+         * @param name the name
+         */
+        VariableKey(GenericDeclaration declaration, String name) {
+            this.declaration = declaration;
+            this.name = name;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return 31*declaration.hashCode() + name.hashCode();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof VariableKey)) {
+                return false;
+            }
+            VariableKey other = (VariableKey)obj;
+            return declaration.equals(other.declaration) && name.equals(other.name);
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeansException;
+import org.springframework.context.support.ApplicationObjectSupport;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController;
+import com.googlecode.webmvc.web.servlet.generics.support.UrlPatternDefinitions;
+
+/**
+ * <p>
+ *  Builds links to the {@link AbstractUrlCommandController}s in
+ *  the application context from their url patterns, so that views
+ *  don't have to repeat the patterns.  The controllers are found
+ *  and their patterns compiled (see {@link UrlPatternWriter}) once,
+ *  when the application context starts, without creating them
+ *  if their patterns are in their bean definitions.  A route is
+ *  named after the controller's bean name and may also be looked
+ *  up by the controller's class, if no other controller has that
+ *  class.
+ *  The values for a link are taken from a {@link Map} or from a
+ *  bean, ie: a command object.
+ * </p>
+ *
+ * <p>
+ *  Links don't include the context path.  The
+ *  {@link TokenReplacementRedirectViewResolver} can redirect to
+ *  routes, prefixing them with the context path when its views
+ *  are context relative, see
+ *  {@link TokenReplacementRedirectView#ROUTE_PREFIX}.
+ * </p>
+ *
+ * <p>
+ *  The folowing sample configuration would allow views to
+ *  build links to the personController, ie:
+ *  <code>linkBuilder.getUrl("personController", person)</code>:
+ *  <pre>
+ *      <code>
+ *      &lt;!-- links --&gt;
+ *      &lt;bean id="linkBuilder"
+ *          class="com.googlecode.webmvc.web.servlet.generics.view.LinkBuilder" /&gt;
+ *
+ *      &lt;bean id="personController" class="com.example.PersonController"&gt;
+ *          &lt;property name="urlPattern"         value="/person/{id}" /&gt;
+ *      &lt;/bean&gt;
+ *      </code>
+ *  </pre>
+ * </p>
+ */
+public class LinkBuilder
+    extends ApplicationObjectSupport {
+
+    private volatile Map<String, UrlPatternWriter> routes
+        = Collections.emptyMap();
+    private volatile Map<Class<?>, UrlPatternWriter> controllerRoutes
+        = Collections.emptyMap();
+
+    /**
+     * Finds the controllers and compiles their patterns.  The
+     * patterns are read from the bean definitions, see
+     * {@link UrlPatternDefinitions}, and the controller classes
+     * from the bean types, so that prototype and lazy-init
+     * controllers aren't created.
+     * @throws BeansException on error
+     */
+    @Override
+    protected void initApplicationContext()
+        throws BeansException {
+        Map<String, UrlPatternWriter> newRoutes = new HashMap<String, UrlPatternWriter>();
+        Map<Class<?>, UrlPatternWriter> newControllerRoutes = new HashMap<Class<?>, UrlPatternWriter>();
+        Set<Class<?>> ambiguous = new HashSet<Class<?>>();
+        Map<String, UrlPattern> patterns = UrlPatternDefinitions.findUrlPatterns(getApplicationContext());
+        for (Map.Entry<String, UrlPattern> entry : patterns.entrySet()) {
+            UrlPatternWriter writer = UrlPatternWriter.compile(entry.getValue());
+            newRoutes.put(entry.getKey(), writer);
+            Class<?> controllerClass = getApplicationContext().getType(entry.getKey());
+            if (controllerClass!=null
+                && newControllerRoutes.put(controllerClass, writer)!=null) {
+                ambiguous.add(controllerClass);
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Added route ["+entry.getKey()+"] for url pattern ["+entry.getValue()+"]");
+            }
+        }
+        newControllerRoutes.keySet().removeAll(ambiguous);
+        this.routes = newRoutes;
+        this.controllerRoutes = newControllerRoutes;
+    }
+
+    /**
+     * Returns the writer for the given route.
+     * @param route the bean name of the controller
+     * @return the writer
+     * @throws IllegalArgumentException if there's no such route
+     */
+    public UrlPatternWriter getWriter(String route) {
+        UrlPatternWriter writer = routes.get(route);
+        if (writer==null) {
+            throw new IllegalArgumentException("No route named "+route);
+        }
+        return writer;
+    }
+
+    /**
+     * Returns the writer for the given controller class.
+     * @param controllerClass the class of the controller
+     * @return the writer
+     * @throws IllegalArgumentException if there's no route, or
+     * more than one, for the class
+     */
+    public UrlPatternWriter getWriter(Class<?> controllerClass) {
+        UrlPatternWriter writer = controllerRoutes.get(controllerClass);
+        if (writer==null) {
+            throw new IllegalArgumentException(
+                "No single route for controller "+controllerClass.getName());
+        }
+        return writer;
+    }
+
+    /**
+     * Checks whether or not there's a route with the given name.
+     * @param route the bean name of the controller
+     * @return true if there is
+     */
+    public boolean hasRoute(String route) {
+        return routes.containsKey(route);
+    }
+
+    /**
+     * Builds the url of the given route.
+     * @param route the bean name of the controller
+     * @param values a {@link Map} or a bean
+     * @return the url
+     * @throws IllegalArgumentException if there's no such route
+     * or a value is missing
+     */
+    public String getUrl(String route, Object values) {
+        return getWriter(route).write(values);
+    }
+
+    /**
+     * Builds the url of the given controller class.
+     * @param controllerClass the class of the controller
+     * @param values a {@link Map} or a bean
+     * @return the url
+     * @throws IllegalArgumentException if there's no single route
+     * for the class or a value is missing
+     */
+    public String getUrl(Class<?> controllerClass, Object values) {
+        return getWriter(controllerClass).write(values);
+    }
+
+    /**
+     * Appends the url of the given route to the given buffer,
+     * see {@link UrlPatternWriter#write(StringBuilder, Object, UrlMatch)}.
+     * Missing values are only taken from the fallback if it is
+     * a match of the route's pattern.
+     * @param buff the buffer
+     * @param route the bean name of the controller
+     * @param values a {@link Map} or a bean, or null
+     * @param fallback the match to take missing values from, or null
+     * @throws IllegalArgumentException if there's no such route
+     * or a value is missing
+     */
+    public void appendUrl(StringBuilder buff, String route, Object values, UrlMatch fallback) {
+        getWriter(route).write(buff, values, fallback);
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import java.nio.charset.Charset;
+
+/**
+ * <p>
+ *  Percent-encodes (as UTF-8) the values that replace the tokens
+ *  of a url.  Values are scanned once, a value that doesn't need
+ *  encoding (ie: a numeric id) is returned or appended as it is
+ *  and anything else is encoded straight into the output rather
+ *  than through {@link java.net.URLEncoder}'s buffers.
+ * </p>
+ *
+ * <p>
+ *  Values are encoded either as a path segment
+ *  ({@link #PATH_SEGMENT}), where a space is <code>%20</code>
+ *  and <code>/</code>, <code>;</code> and <code>+</code> are
+ *  encoded, or as a query component ({@link #QUERY}), where a
+ *  space is <code>+</code> and <code>&amp;</code>,
+ *  <code>=</code> and <code>+</code> are encoded.
+ * </p>
+ */
+public final class TokenEncoder {
+
+    /**
+     * The charset values are encoded as.
+     */
+    public static final Charset CHARSET     = Charset.forName("UTF-8");
+
+    /**
+     * Encode as a path segment.
+     */
+    public static final int PATH_SEGMENT    = 0;
+
+    /**
+     * Encode as the name or value of a query parameter.
+     */
+    public static final int QUERY           = 1;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final boolean[][] SAFE = new boolean[2][128];
+
+    static {
+        for (int mode=PATH_SEGMENT; mode<=QUERY; mode++) {
+            for (char c='a'; c<='z'; c++) {
+                SAFE[mode][c] = true;
+            }
+            for (char c='A'; c<='Z'; c++) {
+                SAFE[mode][c] = true;
+            }
+            for (char c='0'; c<='9'; c++) {
+                SAFE[mode][c] = true;
+            }
+            for (char c : "-._~!$'()*,:@".toCharArray()) {
+                SAFE[mode][c] = true;
+            }
+        }
+        SAFE[PATH_SEGMENT]['&'] = true;
+        SAFE[PATH_SEGMENT]['='] = true;
+        SAFE[QUERY]['/'] = true;
+        SAFE[QUERY]['?'] = true;
+        SAFE[QUERY][';'] = true;
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private TokenEncoder() {
+    }
+
+    /**
+     * Encodes the given value.
+     * @param value the value
+     * @param mode {@link #PATH_SEGMENT} or {@link #QUERY}
+     * @return the encoded value, which is the value itself
+     * if it doesn't need encoding
+     */
+    public static String encode(String value, int mode) {
+        int safe = safeLength(value, mode);
+        if (safe==value.length()) {
+            return value;
+        }
+        StringBuilder buff = new StringBuilder(value.length()+16);
+        encode(value, safe, mode, buff);
+        return buff.toString();
+    }
+
+    /**
+     * Appends the given value, encoded, to the given buffer.
+     * @param value the value
+     * @param mode {@link #PATH_SEGMENT} or {@link #QUERY}
+     * @param buff the buffer
+     */
+    public static void encode(String value, int mode, StringBuilder buff) {
+        int safe = safeLength(value, mode);
+        if (safe==value.length()) {
+            buff.append(value);
+        } else {
+            encode(value, safe, mode, buff);
+        }
+    }
+
+    /**
+     * Returns the length of the part of the given value,
+     * from the start, that doesn't need encoding.
+     * @param value the value
+     * @param mode the mode
+     * @return the length
+     */
+    private static int safeLength(String value, int mode) {
+        boolean[] safe = SAFE[mode];
+        int length = value.length();
+        for (int i=0; i<length; i++) {
+            char c = value.charAt(i);
+            if (c>=128 || !safe[c]) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Appends the given value, of which the given number of
+     * characters don't need encoding, encoded.
+     * @param value the value
+     * @param safeLength the number of characters that don't
+     * need encoding
+     * @param mode the mode
+     * @param buff the buffer
+     */
+    private static void encode(String value, int safeLength, int mode, StringBuilder buff) {
+        boolean[] safe = SAFE[mode];
+        buff.append(value, 0, safeLength);
+        int length = value.length();
+        for (int i=safeLength; i<length; i++) {
+            char c = value.charAt(i);
+            if (c<128) {
+                if (safe[c]) {
+                    buff.append(c);
+                } else if (c==' ' && mode==QUERY) {
+                    buff.append('+');
+                } else {
+                    appendByte(c, buff);
+                }
+            } else if (c<0x800) {
+                appendByte(0xC0 | (c >> 6), buff);
+                appendByte(0x80 | (c & 0x3F), buff);
+            } else if (Character.isHighSurrogate(c) && i+1<length
+                && Character.isLowSurrogate(value.charAt(i+1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendByte(0xF0 | (codePoint >> 18), buff);
+                appendByte(0x80 | ((codePoint >> 12) & 0x3F), buff);
+                appendByte(0x80 | ((codePoint >> 6) & 0x3F), buff);
+                appendByte(0x80 | (codePoint & 0x3F), buff);
+            } else if (c>=Character.MIN_SURROGATE && c<=Character.MAX_SURROGATE) {
+                // like URLEncoder, an unpaired surrogate becomes a '?'
+                appendByte('?', buff);
+            } else {
+                appendByte(0xE0 | (c >> 12), buff);
+                appendByte(0x80 | ((c >> 6) & 0x3F), buff);
+                appendByte(0x80 | (c & 0x3F), buff);
+            }
+        }
+    }
+
+    /**
+     * Appends the given byte, percent-encoded.
+     * @param b the byte
+     * @param buff the buffer
+     */
+    private static void appendByte(int b, StringBuilder buff) {
+        buff.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+
+}
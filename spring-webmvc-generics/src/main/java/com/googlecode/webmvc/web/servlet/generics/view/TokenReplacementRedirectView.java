@@ -1,6 +1,8 @@
 package com.googlecode.webmvc.web.servlet.generics.view;
 
-import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -8,6 +10,9 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.web.servlet.view.AbstractUrlBasedView;
 
+import com.googlecode.webmvc.web.servlet.generics.bind.FieldMatcher;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+
 /**
  * <p>
  *  A view that does token replacement on a url
@@ -17,60 +22,254 @@ import org.springframework.web.servlet.view.AbstractUrlBasedView;
  *  URLS are preprocessed and string token replacement
  *  is performed on the url using the model keys as
  *  tokens and replacing the tokens with the model
- *  value for the given key.
+ *  value for the given key.  The url is parsed once,
+ *  when it is set (see {@link UrlTemplate}), so only
+ *  the tokens it contains are looked up.  Tokens that
+ *  aren't in the model are replaced with the values of
+ *  the current request's url (see {@link UrlMatch}) when
+ *  the url is the pattern the request was matched with, so
+ *  redirecting back to the same resource doesn't need
+ *  the values to be put into the model.  Optionally the
+ *  simple model attributes that aren't used by tokens are
+ *  appended to the query string, see
+ *  {@link #setExposeModelAttributes(boolean)}.  Instead
+ *  of a url the view may name a route of a
+ *  {@link LinkBuilder}, see {@link #ROUTE_PREFIX}.
  * </p>
  */
 public class TokenReplacementRedirectView 
     extends AbstractUrlBasedView {
 
+    /**
+     * The prefix of urls that redirect to a route of the
+     * {@link LinkBuilder}, ie: <code>route:personController</code>
+     * takes the values of the route's url from the model, and
+     * <code>route:personController@person</code> takes them from
+     * the <code>person</code> model attribute.  Either way values
+     * that are missing are taken from the current request's url,
+     * if it was matched with the route's pattern.  The route is
+     * prefixed with the context path when the view is context
+     * relative, see {@link #setContextRelative(boolean)}.
+     */
+    public static final String ROUTE_PREFIX = "route:";
+
     private int httpStatusCode = HttpServletResponse.SC_SEE_OTHER;
     private boolean contextRelative = true;
+    private UrlTemplate template;
+    private boolean exposeModelAttributes = false;
+    private String[] includedAttributes;
+    private String[] excludedAttributes;
+    private FieldMatcher attributeMatcher;
+    private LinkBuilder linkBuilder;
+    private String route;
+    private String routeAttribute;
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setUrl(String url) {
+        super.setUrl(url);
+        this.template = (url!=null) ? UrlTemplate.compile(url) : null;
+        this.route = null;
+        this.routeAttribute = null;
+        if (url!=null && url.startsWith(ROUTE_PREFIX)) {
+            int at = url.indexOf('@', ROUTE_PREFIX.length());
+            this.route = url.substring(ROUTE_PREFIX.length(), (at!=-1) ? at : url.length());
+            this.routeAttribute = (at!=-1) ? url.substring(at+1) : null;
+        }
+    }
     
     /**
      * {@inheritDoc}
      */
     @Override
-    @SuppressWarnings("unchecked")
     protected void renderMergedOutputModel(
         Map model, HttpServletRequest request, HttpServletResponse response)
         throws Exception {
         
-        // build the url
-        StringBuilder buff = new StringBuilder();
+        // build the url, expanding the template
+        StringBuilder buff = new StringBuilder(getUrl().length()+64);
+        UrlMatch match = (route!=null || template.hasTokens()) ? UrlMatch.get(request) : null;
+        
+        // write the route, which doesn't include the context path
+        if (route!=null) {
+            if (linkBuilder==null) {
+                throw new IllegalStateException("No LinkBuilder to redirect to "+getUrl());
+            }
+            if (this.contextRelative) {
+                buff.append(request.getContextPath());
+            }
+            linkBuilder.appendUrl(buff, route,
+                (routeAttribute!=null) ? model.get(routeAttribute) : model, match);
         
         // append context path
-        if (this.contextRelative 
+        } else if (this.contextRelative 
             && getUrl().startsWith("/") 
             && !getUrl().startsWith(request.getContextPath())) {
             buff.append(request.getContextPath());
-            buff.append(getUrl());
+            template.expand(buff, model, match);
             
         // remove context path
         } else if (!this.contextRelative
             && getUrl().startsWith(request.getContextPath())) {
-            buff.append(getUrl());
+            template.expand(buff, model, match);
             buff.replace(0, request.getContextPath().length(), "");
             
         // we're good, just append
         } else {
-            buff.append(getUrl());
+            template.expand(buff, model, match);
+        }
+        
+        // the model attributes that aren't tokens
+        if (exposeModelAttributes) {
+            appendModelAttributes(buff, model);
         }
         
         // the url we're redirecting to
         String url = buff.toString();
         
-        // loop through and do token replacement
-        for (Object key : model.keySet()) {
-            String name = "\\{"+key.toString()+"\\}";
-            String val = model.get(key).toString();
-            url = url.replaceAll(name, URLEncoder.encode(val, "UTF-8"));
-        }
-        
         // send the redirect
         response.setStatus(httpStatusCode);
         response.setHeader("Location", url);
     }
 
+    /**
+     * Appends the simple model attributes that the url's tokens
+     * don't use, and that are allowed by the included and excluded
+     * attributes, to the query string of the given url (before its
+     * fragment, if it has one).  Simple attributes are strings,
+     * numbers, booleans, characters and enums, and arrays or
+     * collections of them which are appended as a parameter for
+     * each element.  Anything else, ie: a
+     * {@link org.springframework.validation.BindingResult}, is
+     * skipped.
+     * @param buff the url
+     * @param model the model
+     */
+    protected void appendModelAttributes(StringBuilder buff, Map<?, ?> model) {
+        
+        // take the fragment off
+        int hash = buff.indexOf("#");
+        String fragment = null;
+        if (hash!=-1) {
+            fragment = buff.substring(hash);
+            buff.setLength(hash);
+        }
+        
+        // append the parameters
+        int query = buff.indexOf("?");
+        boolean first = query==-1 || query==buff.length()-1 || buff.charAt(buff.length()-1)=='&';
+        if (query==-1) {
+            buff.append('?');
+        }
+        for (Map.Entry<?, ?> entry : model.entrySet()) {
+            Object value = entry.getValue();
+            boolean multiple = value instanceof Object[] || value instanceof Collection;
+            if (!multiple && !isSimpleValue(value)) {
+                continue;
+            }
+            String name = String.valueOf(entry.getKey());
+            if (isUsedByUrl(name)
+                || (attributeMatcher!=null && !attributeMatcher.isAllowed(name))) {
+                continue;
+            }
+            Iterable<?> values = (value instanceof Object[])
+                ? Arrays.asList((Object[])value)
+                : (multiple) ? (Collection<?>)value : Collections.singleton(value);
+            for (Object element : values) {
+                if (isSimpleValue(element)) {
+                    if (!first) {
+                        buff.append('&');
+                    }
+                    TokenEncoder.encode(name, TokenEncoder.QUERY, buff);
+                    buff.append('=');
+                    TokenEncoder.encode(element.toString(), TokenEncoder.QUERY, buff);
+                    first = false;
+                }
+            }
+        }
+        
+        // drop the '?' if nothing was appended, and put the fragment back
+        if (query==-1 && first) {
+            buff.setLength(buff.length()-1);
+        }
+        if (fragment!=null) {
+            buff.append(fragment);
+        }
+    }
+    
+    /**
+     * Checks whether or not the given model attribute is used
+     * by the url, as a token or as a value of the route.
+     * @param name the name of the attribute
+     * @return true if it is
+     */
+    private boolean isUsedByUrl(String name) {
+        if (route==null) {
+            return template.containsToken(name);
+        }
+        return name.equals(routeAttribute)
+            || (routeAttribute==null && linkBuilder.getWriter(route).containsProperty(name));
+    }
+
+    /**
+     * Checks whether or not the given value is simple enough
+     * to be appended to the query string.
+     * @param value the value
+     * @return true if it is
+     */
+    private static boolean isSimpleValue(Object value) {
+        return value instanceof CharSequence
+            || value instanceof Number
+            || value instanceof Boolean
+            || value instanceof Character
+            || value instanceof Enum;
+    }
+
+    /**
+     * Sets whether or not model attributes that the url's tokens
+     * don't use are appended to the query string, see
+     * {@link #appendModelAttributes(StringBuilder, Map)}.  This saves
+     * building query strings into view names by hand.  The default
+     * is false.
+     * @param exposeModelAttributes the exposeModelAttributes to set
+     */
+    public void setExposeModelAttributes(boolean exposeModelAttributes) {
+        this.exposeModelAttributes = exposeModelAttributes;
+    }
+
+    /**
+     * Sets the names of the model attributes that may be appended to
+     * the query string, using the same patterns as
+     * {@link org.springframework.validation.DataBinder#setAllowedFields(String[])}
+     * (see {@link FieldMatcher}).  By default all of them may be.
+     * @param includedAttributes the includedAttributes to set
+     */
+    public void setIncludedAttributes(String[] includedAttributes) {
+        this.includedAttributes = includedAttributes;
+        this.attributeMatcher = FieldMatcher.compile(this.includedAttributes, this.excludedAttributes);
+    }
+
+    /**
+     * Sets the names of the model attributes that are never appended
+     * to the query string, {@see #setIncludedAttributes(String[])}.
+     * @param excludedAttributes the excludedAttributes to set
+     */
+    public void setExcludedAttributes(String[] excludedAttributes) {
+        this.excludedAttributes = excludedAttributes;
+        this.attributeMatcher = FieldMatcher.compile(this.includedAttributes, this.excludedAttributes);
+    }
+
+    /**
+     * Sets the {@link LinkBuilder} that urls starting with
+     * {@link #ROUTE_PREFIX} are built with.
+     * @param linkBuilder the linkBuilder to set
+     */
+    public void setLinkBuilder(LinkBuilder linkBuilder) {
+        this.linkBuilder = linkBuilder;
+    }
+
     /**
      * Sets the HTTP status code to use for the redirect.  The
      * default is {@link HttpServletResponse#SC_SEE_OTHER}
@@ -85,8 +284,8 @@ public class TokenReplacementRedirectView
     /**
      * Sets whether redirects are context relative or
      * not.  By default this is set to true and only
-     * urls that start with a forward slash ("/") are
-     * redirected in a context relative manner.
+     * urls that start with a forward slash ("/"), and
+     * routes, are redirected in a context relative manner.
      * @param contextRelative the contextRelative to set
      */
     public void setContextRelative(boolean contextRelative) {
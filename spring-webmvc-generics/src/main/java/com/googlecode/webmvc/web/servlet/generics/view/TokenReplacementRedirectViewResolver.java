@@ -8,6 +8,8 @@ import org.springframework.core.Ordered;
 import org.springframework.web.servlet.View;
 import org.springframework.web.servlet.ViewResolver;
 
+import com.googlecode.webmvc.web.servlet.generics.util.LruCache;
+
 /**
  * <p>
  *  A {@link ViewResolver} that resolves {@link TokenReplacementRedirectView}s.
@@ -19,6 +21,9 @@ import org.springframework.web.servlet.ViewResolver;
  *  {@link TokenReplacementRedirectView}s using an HTTP
  *  status code of 303 and ensuring that the url being
  *  redirected to is context relative (if it starts with "/").
+ *  Views are cached by view name, see {@link #setCacheLimit(int)}.
+ *  With a {@link LinkBuilder} views may redirect to routes,
+ *  ie: <code>sendRedirect:route:personController</code>.
  *  <pre>
  *      <code>
  *      &lt;!-- redirector --&gt;
@@ -38,10 +43,20 @@ public class TokenReplacementRedirectViewResolver
     implements ViewResolver,
     Ordered {
 
+    /**
+     * The default maximum number of views to cache.
+     */
+    public static final int DEFAULT_CACHE_LIMIT = 1024;
+
     private String prefix           = "sendRedirect:";
     private int httpStatusCode      = HttpServletResponse.SC_SEE_OTHER;
     private boolean contextRelative = true;
     private int order               = 0;
+    private boolean exposeModelAttributes = false;
+    private String[] includedAttributes;
+    private String[] excludedAttributes;
+    private LinkBuilder linkBuilder;
+    private volatile ViewCache cache = new ViewCache(DEFAULT_CACHE_LIMIT);
     
     /**
      * {@inheritDoc}
@@ -54,10 +69,28 @@ public class TokenReplacementRedirectViewResolver
             return null;
         }
         
+        // look it up
+        ViewCache viewCache = cache;
+        return (viewCache!=null)
+            ? viewCache.get(viewName)
+            : createView(viewName);
+    }
+    
+    /**
+     * Creates the view for the given view name.
+     * @param viewName the view name, including the prefix
+     * @return the view
+     */
+    protected View createView(String viewName) {
+        
         // create the view
         TokenReplacementRedirectView view = new TokenReplacementRedirectView();
         view.setContextRelative(contextRelative);
         view.setHttpStatusCode(httpStatusCode);
+        view.setExposeModelAttributes(exposeModelAttributes);
+        view.setIncludedAttributes(includedAttributes);
+        view.setExcludedAttributes(excludedAttributes);
+        view.setLinkBuilder(linkBuilder);
         view.setUrl(viewName.substring(prefix.length()));
         
         // return it
@@ -98,6 +131,88 @@ public class TokenReplacementRedirectViewResolver
         this.contextRelative = contextRelative;
     }
 
+    /**
+     * {@see TokenReplacementRedirectView#setExposeModelAttributes(boolean)}.
+     * @param exposeModelAttributes the exposeModelAttributes to set
+     */
+    public void setExposeModelAttributes(boolean exposeModelAttributes) {
+        this.exposeModelAttributes = exposeModelAttributes;
+    }
+
+    /**
+     * {@see TokenReplacementRedirectView#setIncludedAttributes(String[])}.
+     * @param includedAttributes the includedAttributes to set
+     */
+    public void setIncludedAttributes(String[] includedAttributes) {
+        this.includedAttributes = includedAttributes;
+    }
+
+    /**
+     * {@see TokenReplacementRedirectView#setExcludedAttributes(String[])}.
+     * @param excludedAttributes the excludedAttributes to set
+     */
+    public void setExcludedAttributes(String[] excludedAttributes) {
+        this.excludedAttributes = excludedAttributes;
+    }
+
+    /**
+     * {@see TokenReplacementRedirectView#setLinkBuilder(LinkBuilder)}.
+     * @param linkBuilder the linkBuilder to set
+     */
+    public void setLinkBuilder(LinkBuilder linkBuilder) {
+        this.linkBuilder = linkBuilder;
+    }
+
+    /**
+     * Sets the maximum number of views that are cached, by view
+     * name, so that the url of each view is only parsed once.
+     * When there are more views than that the least recently
+     * used are evicted.  The default is {@link #DEFAULT_CACHE_LIMIT},
+     * 0 turns caching off.  Changing it clears the cache.  View
+     * names that embed ids, ie: <code>redirect:/person/123</code>
+     * rather than <code>redirect:/person/{id}</code>, will thrash
+     * the cache and should be returned with caching off.
+     * @param cacheLimit the cacheLimit to set
+     */
+    public void setCacheLimit(int cacheLimit) {
+        this.cache = (cacheLimit>0) ? new ViewCache(cacheLimit) : null;
+    }
+
+    /**
+     * @return the maximum number of views that are cached
+     */
+    public int getCacheLimit() {
+        ViewCache viewCache = cache;
+        return (viewCache!=null) ? viewCache.getCapacity() : 0;
+    }
+
+    /**
+     * @return the number of views that were found in the cache
+     */
+    public long getCacheHits() {
+        ViewCache viewCache = cache;
+        return (viewCache!=null) ? viewCache.getHitCount() : 0;
+    }
+
+    /**
+     * @return the number of views that had to be created
+     */
+    public long getCacheMisses() {
+        ViewCache viewCache = cache;
+        return (viewCache!=null) ? viewCache.getMissCount() : 0;
+    }
+
+    /**
+     * Removes all views from the cache, ie: after changing
+     * the configuration of the views.
+     */
+    public void clearCache() {
+        ViewCache viewCache = cache;
+        if (viewCache!=null) {
+            viewCache.clear();
+        }
+    }
+
     /**
      * @return the order
      */
@@ -111,5 +226,28 @@ public class TokenReplacementRedirectViewResolver
     public void setOrder(int order) {
         this.order = order;
     }
+
+    /**
+     * The cache of views.
+     */
+    private final class ViewCache
+        extends LruCache<String, View> {
+
+        /**
+         * Creates the ViewCache.
+         * @param capacity the capacity
+         */
+        ViewCache(int capacity) {
+            super(capacity);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected View computeValue(String viewName) {
+            return createView(viewName);
+        }
+    }
     
 }
@@ -0,0 +1,243 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+import com.googlecode.webmvc.web.servlet.generics.util.ClassCache;
+
+/**
+ * <p>
+ *  Writes urls for a {@link UrlPattern}, the reverse of binding
+ *  them.  The pattern is compiled once into the literal text
+ *  between its bound segments, so writing a url only appends
+ *  the literals and the encoded (see {@link TokenEncoder})
+ *  values of the bound properties.  The values are taken from a
+ *  {@link Map} or from the properties of a bean, ie: a command
+ *  object, whose getters are looked up once per class.
+ * </p>
+ *
+ * <p>
+ *  A <code>{name*}</code> segment's value may contain slashes,
+ *  which are kept.  For patterns without braces, where every
+ *  segment is a property, a segment whose value is missing is
+ *  written as it appears in the pattern.
+ * </p>
+ *
+ * <p>
+ *  Instances are immutable and thread safe.
+ * </p>
+ */
+public final class UrlPatternWriter {
+
+    private final UrlPattern pattern;
+    private final String[] literals;
+    private final String[] names;
+    private final String[] segments;
+    private final boolean[] tails;
+    private final Set<String> nameSet;
+    private final ClassCache<Method[]> getters = new ClassCache<Method[]>() {
+        @Override
+        protected Method[] computeValue(Class<?> clazz) {
+            return findGetters(clazz);
+        }
+    };
+
+    /**
+     * Creates the UrlPatternWriter.
+     * @param pattern the pattern
+     */
+    private UrlPatternWriter(UrlPattern pattern) {
+        this.pattern = pattern;
+
+        // literals[i] comes before names[i], the last literal
+        // comes after the last name
+        String[] propertyNames = pattern.getPropertyNames(null);
+        List<String> literalList = new ArrayList<String>();
+        List<String> nameList = new ArrayList<String>();
+        List<String> segmentList = new ArrayList<String>();
+        List<Boolean> tailList = new ArrayList<Boolean>();
+        StringBuilder literal = new StringBuilder();
+        for (int i=0; i<pattern.getSegmentCount(); i++) {
+            if (i>0) {
+                literal.append('/');
+            }
+            if (propertyNames[i]==null) {
+                literal.append(pattern.getSegment(i));
+                continue;
+            }
+            literalList.add(literal.toString());
+            nameList.add(propertyNames[i]);
+            segmentList.add((pattern.isTemplate()) ? null : pattern.getSegment(i));
+            tailList.add(Boolean.valueOf(pattern.isTail(i)));
+            literal.setLength(0);
+        }
+        literalList.add(literal.toString());
+        this.literals = literalList.toArray(new String[literalList.size()]);
+        this.names = nameList.toArray(new String[nameList.size()]);
+        this.segments = segmentList.toArray(new String[segmentList.size()]);
+        this.tails = new boolean[names.length];
+        for (int i=0; i<names.length; i++) {
+            tails[i] = tailList.get(i).booleanValue();
+        }
+        this.nameSet = new HashSet<String>(nameList);
+    }
+
+    /**
+     * Compiles a writer for the given pattern.
+     * @param pattern the pattern
+     * @return the writer
+     */
+    public static UrlPatternWriter compile(UrlPattern pattern) {
+        return new UrlPatternWriter(pattern);
+    }
+
+    /**
+     * Writes the url for the given values.
+     * @param values a {@link Map} or a bean
+     * @return the url
+     * @throws IllegalArgumentException if a value is missing
+     */
+    public String write(Object values) {
+        StringBuilder buff = new StringBuilder(pattern.getPattern().length()+32);
+        write(buff, values, null);
+        return buff.toString();
+    }
+
+    /**
+     * Appends the url for the given values to the given buffer.
+     * Values that are missing (or null) are taken from the given
+     * {@link UrlMatch} if it is a match of this writer's pattern,
+     * ie: when linking back to the same resource.  They're
+     * decoded and stripped of their matrix parameters, and then
+     * encoded like any other value.  A match of another pattern
+     * is ignored.
+     * @param buff the buffer
+     * @param values a {@link Map} or a bean, or null
+     * @param fallback the match to take missing values from, or null
+     * @throws IllegalArgumentException if a value is missing
+     */
+    public void write(StringBuilder buff, Object values, UrlMatch fallback) {
+        Method[] beanGetters = (values!=null && !(values instanceof Map))
+            ? getters.get(values.getClass()) : null;
+        if (fallback!=null && !fallback.getPattern().equals(pattern)) {
+            fallback = null;
+        }
+        for (int i=0; i<names.length; i++) {
+            buff.append(literals[i]);
+            Object value = (values!=null) ? getValue(values, beanGetters, i) : null;
+            if (value==null && fallback!=null) {
+                value = fallback.getPathValue(names[i], TokenEncoder.CHARSET);
+            }
+            if (value!=null && tails[i]) {
+                appendTail(value.toString(), buff);
+            } else if (value!=null) {
+                TokenEncoder.encode(value.toString(), TokenEncoder.PATH_SEGMENT, buff);
+            } else if (segments[i]!=null) {
+                buff.append(segments[i]);
+            } else {
+                throw new IllegalArgumentException(
+                    "No value for "+names[i]+" in url pattern "+pattern);
+            }
+        }
+        buff.append(literals[names.length]);
+    }
+
+    /**
+     * Returns the value of the property at the given index.
+     * @param values a {@link Map} or a bean
+     * @param beanGetters the bean's getters, or null for a map
+     * @param index the index
+     * @return the value
+     */
+    private Object getValue(Object values, Method[] beanGetters, int index) {
+        if (beanGetters==null) {
+            return ((Map<?, ?>)values).get(names[index]);
+        } else if (beanGetters[index]==null) {
+            BeanWrapperImpl wrapper = new BeanWrapperImpl(values);
+            return wrapper.isReadableProperty(names[index])
+                ? wrapper.getPropertyValue(names[index]) : null;
+        }
+        try {
+            return beanGetters[index].invoke(values);
+        } catch (IllegalAccessException iae) {
+            throw new IllegalStateException(iae);
+        } catch (InvocationTargetException ite) {
+            throw new IllegalStateException(ite.getTargetException());
+        }
+    }
+
+    /**
+     * Appends a <code>{name*}</code> value, encoding
+     * everything but the slashes.
+     * @param value the value
+     * @param buff the buffer
+     */
+    private static void appendTail(String value, StringBuilder buff) {
+        int start = 0;
+        for (int end = value.indexOf('/'); end!=-1; end = value.indexOf('/', start)) {
+            TokenEncoder.encode(value.substring(start, end), TokenEncoder.PATH_SEGMENT, buff);
+            buff.append('/');
+            start = end+1;
+        }
+        TokenEncoder.encode(value.substring(start), TokenEncoder.PATH_SEGMENT, buff);
+    }
+
+    /**
+     * Finds the getters of the given class for the bound
+     * properties.  Nested properties, and those without a
+     * getter, are left null to be read with a BeanWrapper.
+     * @param clazz the class
+     * @return the getters
+     */
+    private Method[] findGetters(Class<?> clazz) {
+        Method[] found = new Method[names.length];
+        for (int i=0; i<names.length; i++) {
+            if (names[i].indexOf('.')!=-1 || names[i].indexOf('[')!=-1) {
+                continue;
+            }
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(clazz, names[i]);
+            Method getter = (descriptor!=null) ? descriptor.getReadMethod() : null;
+            if (getter!=null) {
+                getter.setAccessible(true);
+                found[i] = getter;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks whether or not the url contains the given property.
+     * @param name the property name
+     * @return true if it does
+     */
+    public boolean containsProperty(String name) {
+        return nameSet.contains(name);
+    }
+
+    /**
+     * @return the pattern
+     */
+    public UrlPattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return pattern.toString();
+    }
+
+}
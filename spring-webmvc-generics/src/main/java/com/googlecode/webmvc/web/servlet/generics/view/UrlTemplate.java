@@ -0,0 +1,162 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+
+/**
+ * <p>
+ *  A url with <code>{name}</code> tokens, parsed once into its
+ *  literal parts and tokens so that expanding it is a single
+ *  pass over the parts that only looks up the tokens the url
+ *  actually contains, ie:
+ *  <code>/person/{id}/edit.html?tab={tab}</code>.  A
+ *  <code>{</code> without a matching <code>}</code> is part
+ *  of a literal.
+ * </p>
+ *
+ * <p>
+ *  Instances are immutable and thread safe.
+ * </p>
+ */
+public final class UrlTemplate {
+
+    private final String url;
+    private final String path;
+    private final String[] literals;
+    private final String[] tokens;
+    private final int[] encodings;
+    private final Set<String> tokenSet;
+
+    /**
+     * Creates the UrlTemplate.
+     * @param url the url
+     */
+    private UrlTemplate(String url) {
+        this.url = url;
+        int pathEnd = 0;
+        while (pathEnd<url.length() && url.charAt(pathEnd)!='?' && url.charAt(pathEnd)!='#') {
+            pathEnd++;
+        }
+        this.path = url.substring(0, pathEnd);
+
+        // literals[i] comes before tokens[i], the last literal
+        // comes after the last token
+        List<String> literalList = new ArrayList<String>();
+        List<String> tokenList = new ArrayList<String>();
+        int start = 0;
+        int open = url.indexOf('{');
+        while (open!=-1) {
+            int close = url.indexOf('}', open+1);
+            if (close==-1) {
+                break;
+            }
+            literalList.add(url.substring(start, open));
+            tokenList.add(url.substring(open+1, close));
+            start = close+1;
+            open = url.indexOf('{', start);
+        }
+        literalList.add(url.substring(start));
+        this.literals = literalList.toArray(new String[literalList.size()]);
+        this.tokens = tokenList.toArray(new String[tokenList.size()]);
+        this.tokenSet = new HashSet<String>(tokenList);
+
+        // tokens after the '?' are encoded as query components
+        this.encodings = new int[tokens.length];
+        boolean query = false;
+        for (int i=0; i<tokens.length; i++) {
+            query |= literals[i].indexOf('?')!=-1;
+            encodings[i] = (query) ? TokenEncoder.QUERY : TokenEncoder.PATH_SEGMENT;
+        }
+    }
+
+    /**
+     * Parses the given url.
+     * @param url the url
+     * @return the template
+     */
+    public static UrlTemplate compile(String url) {
+        return new UrlTemplate(url);
+    }
+
+    /**
+     * Appends the url to the given buffer, replacing each token
+     * with the encoded value of the model attribute of the same
+     * name or, if there isn't one, with the value of the same
+     * name from the given {@link UrlMatch}.  The match is only
+     * used if the url, up to its query string, is the pattern
+     * that was matched, ie: when linking back to the same
+     * resource, and its values are decoded and stripped of their
+     * matrix parameters first.  Values are encoded as path
+     * segments, or as query components after the url's
+     * <code>?</code>, see {@link TokenEncoder}.  Tokens that have
+     * neither are left as they are.
+     * @param buff the buffer
+     * @param model the model
+     * @param match the url match of the current request, or null
+     */
+    public void expand(StringBuilder buff, Map<?, ?> model, UrlMatch match) {
+        if (match!=null && !path.equals(match.getPattern().getPattern())) {
+            match = null;
+        }
+        for (int i=0; i<tokens.length; i++) {
+            buff.append(literals[i]);
+            Object value = model.get(tokens[i]);
+            if (value==null && match!=null) {
+                value = match.getPathValue(tokens[i], TokenEncoder.CHARSET);
+            }
+            if (value!=null) {
+                TokenEncoder.encode(value.toString(), encodings[i], buff);
+            } else {
+                buff.append('{').append(tokens[i]).append('}');
+            }
+        }
+        buff.append(literals[tokens.length]);
+    }
+
+    /**
+     * Returns the names of the tokens in the order they
+     * appear in the url.  The returned array is shared
+     * and must not be modified.
+     * @return the token names
+     */
+    public String[] getTokenNames() {
+        return tokens;
+    }
+
+    /**
+     * Checks whether or not the url contains the given token.
+     * @param name the name of the token
+     * @return true if it does
+     */
+    public boolean containsToken(String name) {
+        return tokenSet.contains(name);
+    }
+
+    /**
+     * @return true if the url contains any tokens
+     */
+    public boolean hasTokens() {
+        return tokens.length>0;
+    }
+
+    /**
+     * @return the url
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return url;
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.junit.Test;
+import org.springframework.beans.MutablePropertyValues;
+
+public class FieldMatcherTest {
+
+    @Test
+    public void testIsAllowed() {
+        FieldMatcher matcher = FieldMatcher.compile(
+            new String[] {"name", "address.*", "*Id", "a*b"}, null);
+        assertTrue(matcher.isAllowed("name"));
+        assertTrue(matcher.isAllowed("address.street"));
+        assertTrue(matcher.isAllowed("address."));
+        assertTrue(matcher.isAllowed("groupId"));
+        assertTrue(matcher.isAllowed("Id"));
+        assertTrue(matcher.isAllowed("ab"));
+        assertTrue(matcher.isAllowed("axxb"));
+        assertFalse(matcher.isAllowed("names"));
+        assertFalse(matcher.isAllowed("nam"));
+        assertFalse(matcher.isAllowed("address"));
+        assertFalse(matcher.isAllowed("groupid"));
+        assertFalse(matcher.isAllowed("axxc"));
+    }
+
+    @Test
+    public void testDisallowed() {
+        FieldMatcher matcher = FieldMatcher.compile(
+            new String[] {"*"}, new String[] {"id", "*.id", "admin*"});
+        assertTrue(matcher.isAllowed("name"));
+        assertTrue(matcher.isAllowed("idx"));
+        assertFalse(matcher.isAllowed("id"));
+        assertFalse(matcher.isAllowed("address.id"));
+        assertFalse(matcher.isAllowed("administrator"));
+
+        matcher = FieldMatcher.compile(null, new String[] {"id"});
+        assertTrue(matcher.isAllowed("name"));
+        assertFalse(matcher.isAllowed("id"));
+    }
+
+    @Test
+    public void testGetPropertyValues() {
+        Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+        parameters.put("name", new String[] {"Charles"});
+        parameters.put("_name", new String[] {"on"});
+        parameters.put("tags", new String[] {"a", "b"});
+        parameters.put("id", new String[] {"12"});
+        parameters.put("_id", new String[] {"on"});
+        MutablePropertyValues mpvs = FieldMatcher.compile(new String[] {"name", "tags"}, null)
+            .getPropertyValues(request(parameters), "_");
+        assertEquals(3, mpvs.size());
+        assertEquals("Charles", mpvs.getPropertyValue("name").getValue());
+        assertEquals("on", mpvs.getPropertyValue("_name").getValue());
+        assertEquals(2, ((String[])mpvs.getPropertyValue("tags").getValue()).length);
+        assertNull(mpvs.getPropertyValue("id"));
+        assertNull(mpvs.getPropertyValue("_id"));
+    }
+
+    private static ServletRequest request(final Map<String, String[]> parameters) {
+        return (ServletRequest)Proxy.newProxyInstance(
+            FieldMatcherTest.class.getClassLoader(), new Class<?>[] {ServletRequest.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("getParameterNames")) {
+                        return Collections.enumeration(parameters.keySet());
+                    } else if (method.getName().equals("getParameterValues")) {
+                        return parameters.get(args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.junit.Test;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.PropertyValues;
+
+public class RequestParameterPropertyValuesTest {
+
+    @Test
+    public void testPropertyValues() {
+        Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+        parameters.put("name", new String[] {"Charles"});
+        parameters.put("tags", new String[] {"a", "b"});
+        parameters.put("empty", new String[0]);
+        PropertyValues pvs = new RequestParameterPropertyValues(request(parameters));
+        assertFalse(pvs.isEmpty());
+        assertTrue(pvs.contains("name"));
+        assertFalse(pvs.contains("empty"));
+        assertFalse(pvs.contains("missing"));
+        assertEquals("Charles", pvs.getPropertyValue("name").getValue());
+        assertEquals(2, ((String[])pvs.getPropertyValue("tags").getValue()).length);
+        assertNull(pvs.getPropertyValue("empty"));
+
+        PropertyValue[] all = pvs.getPropertyValues();
+        assertEquals(2, all.length);
+        assertEquals("name", all[0].getName());
+        assertEquals("tags", all[1].getName());
+        assertTrue(pvs.changesSince(pvs).isEmpty());
+
+        // bound as is, rather than copied
+        assertTrue(pvs instanceof MutablePropertyValues);
+    }
+
+    @Test
+    public void testPrefix() {
+        Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+        parameters.put("name", new String[] {"Charles"});
+        parameters.put("person_name", new String[] {"Darwin"});
+        PropertyValues pvs = new RequestParameterPropertyValues(request(parameters), "person_");
+        assertEquals("Darwin", pvs.getPropertyValue("name").getValue());
+        assertFalse(pvs.contains("person_name"));
+        assertEquals(1, pvs.getPropertyValues().length);
+        assertEquals("name", pvs.getPropertyValues()[0].getName());
+
+        assertTrue(new RequestParameterPropertyValues(request(parameters), "address_").isEmpty());
+    }
+
+    private static ServletRequest request(final Map<String, String[]> parameters) {
+        return (ServletRequest)Proxy.newProxyInstance(
+            RequestParameterPropertyValuesTest.class.getClassLoader(), new Class<?>[] {ServletRequest.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("getParameterMap")) {
+                        return parameters;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+}
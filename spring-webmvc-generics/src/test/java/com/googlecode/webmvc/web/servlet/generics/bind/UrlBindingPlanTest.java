@@ -0,0 +1,79 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import static org.junit.Assert.*;
+
+import java.beans.PropertyEditorSupport;
+import java.nio.charset.Charset;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.springframework.validation.DataBinder;
+
+public class UrlBindingPlanTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testBind() throws Exception {
+        UrlPattern pattern = UrlPattern.compile("/person/{id}/{type}/{key}/{name}");
+        UrlBindingPlan plan = UrlBindingPlan.forClass(Person.class, pattern);
+        assertTrue(plan.isApplicable());
+        assertSame(plan, UrlBindingPlan.forClass(Person.class, pattern));
+        
+        Person person = new Person();
+        String uuid = UUID.randomUUID().toString();
+        assertTrue(plan.bind(new DataBinder(person), pattern.match("/person/-12/ADMIN/"+uuid+"/Charles%20Darwin", 0), UTF8));
+        assertEquals(-12L, person.getId());
+        assertEquals(Type.ADMIN, person.getType());
+        assertEquals(UUID.fromString(uuid), person.getKey());
+        assertEquals("Charles Darwin", person.getName());
+    }
+
+    @Test
+    public void testSharedByPattern() throws Exception {
+
+        // ie: two prototype controllers, each compiling the pattern
+        UrlBindingPlan plan = UrlBindingPlan.forClass(Person.class, UrlPattern.compile("/shared/{id}"));
+        assertSame(plan, UrlBindingPlan.forClass(Person.class, UrlPattern.compile("/shared/{id}")));
+        assertNotSame(plan, UrlBindingPlan.forClass(Person.class, UrlPattern.compile("/shared/{name}")));
+
+        // and binds the matches of any of them
+        Person person = new Person();
+        assertTrue(plan.bind(new DataBinder(person), UrlPattern.compile("/shared/{id}").match("/shared/7", 0), null));
+        assertEquals(7L, person.getId());
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        UrlPattern pattern = UrlPattern.compile("/person/{id}/{type}");
+        UrlBindingPlan plan = UrlBindingPlan.forClass(Person.class, pattern);
+        assertFalse(plan.bind(new DataBinder(new Person()), pattern.match("/person/0x1F/ADMIN", 0), null));
+        assertFalse(plan.bind(new DataBinder(new Person()), pattern.match("/person/1/NOBODY", 0), null));
+        assertFalse(plan.bind(new DataBinder(new Person()), pattern.match("/person//ADMIN", 0), null));
+        
+        DataBinder binder = new DataBinder(new Person());
+        binder.registerCustomEditor(Type.class, "type", new PropertyEditorSupport());
+        assertFalse(plan.bind(binder, pattern.match("/person/1/ADMIN", 0), null));
+        
+        assertFalse(UrlBindingPlan.forClass(Person.class, UrlPattern.compile("/{name.length}")).isApplicable());
+        assertFalse(UrlBindingPlan.forClass(Person.class, UrlPattern.compile("/{missing}")).isApplicable());
+    }
+
+    public enum Type { ADMIN, USER }
+
+    public static class Person {
+        private long id;
+        private Type type;
+        private UUID key;
+        private String name;
+        public long getId() { return id; }
+        public void setId(long id) { this.id = id; }
+        public Type getType() { return type; }
+        public void setType(Type type) { this.type = type; }
+        public UUID getKey() { return key; }
+        public void setKey(UUID key) { this.key = key; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.googlecode.webmvc.web.servlet.generics.bind;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public class UrlPropertyValuesTest {
+
+    @Test
+    public void testUrlPattern() {
+        UrlPattern pattern = UrlPattern.compile("/notused/p_id/name/");
+        assertEquals(4, pattern.getSegmentCount());
+        assertArrayEquals(new String[] {null, "notused", "p_id", "name"}, pattern.getPropertyNames(null));
+        assertArrayEquals(new String[] {null, null, "id", null}, pattern.getPropertyNames("p_"));
+        assertSame(pattern.getPropertyNames("p_"), pattern.getPropertyNames("p_"));
+        
+        pattern = UrlPattern.compile("/person/{id}/{name}");
+        assertArrayEquals(new String[] {null, null, "id", "name"}, pattern.getPropertyNames(null));
+    }
+
+    @Test
+    public void testUrlPropertyValues() {
+        UrlPropertyValues values = new UrlPropertyValues("/notused/id/name", "/person/123/Charles");
+        assertEquals("123", values.getPropertyValue("id").getValue());
+        assertEquals("Charles", values.getPropertyValue("name").getValue());
+        assertEquals("person", values.getPropertyValue("notused").getValue());
+        
+        values = new UrlPropertyValues("/person/{id}/{name}", "/person/123");
+        assertEquals(1, values.size());
+        assertEquals("123", values.getPropertyValue("id").getValue());
+        
+        values = new UrlPropertyValues("/notused/p_id/p_name", "/person/123//", "p");
+        assertEquals(1, values.size());
+        assertEquals("123", values.getPropertyValue("id").getValue());
+        
+        values = new UrlPropertyValues(UrlPattern.compile("/a/{b}/{c}/{d}"), "/x//z");
+        assertEquals("", values.getPropertyValue("b").getValue());
+        assertEquals("z", values.getPropertyValue("c").getValue());
+        assertNull(values.getPropertyValue("d"));
+        
+        values = new UrlPropertyValues(UrlPattern.compile("/{a}/{b}"), "/ctx/x/y", 4, null);
+        assertEquals(2, values.size());
+        assertEquals("x", values.getPropertyValue("a").getValue());
+        assertEquals("y", values.getPropertyValue("b").getValue());
+    }
+
+    @Test
+    public void testUrlMatch() {
+        UrlMatch match = UrlPattern.compile("/person/{id}/{name}").match("/ctx/person/123//", 4);
+        assertEquals(3, match.getSegmentCount());
+        assertEquals(12, match.getSegmentStart(2));
+        assertEquals(15, match.getSegmentEnd(2));
+        assertEquals("123", match.getValue("id"));
+        assertEquals("id", match.getPropertyName(2));
+        assertNull(match.getPropertyName(1));
+        assertNull(match.getValue("name"));
+        assertTrue(match.isMatchOf(UrlPattern.compile("/person/{id}/{name}"), "/ctx/person/123//", 4));
+        assertFalse(match.isMatchOf(UrlPattern.compile("/person/{id}/{name}"), "/ctx/person/456//", 4));
+        assertFalse(match.isMatchOf(UrlPattern.compile("/person/{id}/{name}"), "/ctx/person/123//", 0));
+        assertFalse(match.isMatchOf(UrlPattern.compile("/person/{id}"), "/ctx/person/123//", 4));
+        
+        UrlPropertyValues values = new UrlPropertyValues(match, null);
+        assertEquals(1, values.size());
+        assertEquals("123", values.getPropertyValue("id").getValue());
+    }
+
+    @Test
+    public void testConstraintsAndTail() {
+        UrlPattern pattern = UrlPattern.compile("/person/{id:\\d+}/{name}");
+        assertArrayEquals(new String[] {null, null, "id", "name"}, pattern.getPropertyNames(null));
+        assertNotNull(pattern.matchStrictly("/person/123/Charles", 0));
+        assertNotNull(pattern.matchStrictly("/person/123/Charles/", 0));
+        assertNull(pattern.matchStrictly("/person/123", 0));
+        assertNull(pattern.matchStrictly("/person/123/", 0));
+        assertNull(pattern.matchStrictly("/person/123/Charles/more", 0));
+        assertNull(pattern.matchStrictly("/person/123//more", 0));
+        assertNull(pattern.matchStrictly("/person/abc/Charles", 0));
+        assertNull(pattern.matchStrictly("/people/123/Charles", 0));
+        assertNull(pattern.matchStrictly("/person", 0));
+        assertNotNull(UrlPattern.compile("/notused/id").matchStrictly("/anything/at", 0));
+        assertNull(UrlPattern.compile("/notused/id").matchStrictly("/anything/at/all", 0));
+        
+        pattern = UrlPattern.compile("/person/{id}/edit");
+        assertNotNull(pattern.matchStrictly("/person/1/edit", 0));
+        assertNull(pattern.matchStrictly("/person//edit", 0));
+        assertNull(pattern.matchStrictly("/person/1/edit/more", 0));
+        
+        pattern = UrlPattern.compile("/files/{path*}");
+        UrlMatch match = pattern.matchStrictly("/ctx/files/a/b/c.txt/", 4);
+        assertEquals("a/b/c.txt", match.getValue("path"));
+        assertNotNull(pattern.matchStrictly("/files/", 0));
+        assertNotNull(pattern.matchStrictly("/files", 0));
+        assertEquals("a", pattern.match("/files/a", 0).getValue("path"));
+        
+        try {
+            UrlPattern.compile("/{path*}/more");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDecode() {
+        Charset utf8 = Charset.forName("UTF-8");
+        String url = "/x/Charles+R%20Darwin%C3%A9/plain/100%/%zz";
+        String plain = "/x/plain";
+        assertSame(plain, UrlMatch.decode(plain, 0, plain.length(), utf8));
+        assertEquals("plain", UrlMatch.decode(url, 28, 33, utf8));
+        assertEquals("Charles R Darwin\u00e9", UrlMatch.decode(url, 3, 27, utf8));
+        assertEquals("100%", UrlMatch.decode(url, 34, 38, utf8));
+        assertEquals("%zz", UrlMatch.decode(url, 39, 42, utf8));
+        
+        UrlPropertyValues values = new UrlPropertyValues(
+            UrlPattern.compile("/{name}").match("/a%2Fb", 0), null, utf8);
+        assertEquals("a/b", values.getPropertyValue("name").getValue());
+    }
+
+    @Test
+    public void testMatrixParameters() {
+        UrlPattern pattern = UrlPattern.compile("/orders/{filter}/{id:\\d+}");
+        UrlMatch match = pattern.matchStrictly("/orders;x=1/all;status=open;page=3;flag/123;rev=%32", 0);
+        assertNotNull(match);
+        assertTrue(match.hasMatrixParameters());
+        
+        // ignored parameters stay in the values
+        UrlPropertyValues values = new UrlPropertyValues(match, null, null);
+        assertEquals("all;status=open;page=3;flag", values.getPropertyValue("filter").getValue());
+        assertEquals("123;rev=%32", values.getPropertyValue("id").getValue());
+        assertNull(values.getPropertyValue("status"));
+        assertEquals("all;status=open;page=3;flag", match.getValue("filter"));
+        assertEquals("all", match.getPathValue("filter", null));
+        assertNull(match.getPathValue("status", null));
+        
+        values = new UrlPropertyValues(match, null, Charset.forName("UTF-8"), UrlPropertyValues.MATRIX_TOP_LEVEL);
+        assertEquals("all", values.getPropertyValue("filter").getValue());
+        assertEquals("123", values.getPropertyValue("id").getValue());
+        assertEquals("1", values.getPropertyValue("x").getValue());
+        assertEquals("open", values.getPropertyValue("status").getValue());
+        assertEquals("3", values.getPropertyValue("page").getValue());
+        assertEquals("", values.getPropertyValue("flag").getValue());
+        assertEquals("2", values.getPropertyValue("rev").getValue());
+        
+        values = new UrlPropertyValues(match, null, null, UrlPropertyValues.MATRIX_NESTED);
+        assertEquals("1", values.getPropertyValue("x").getValue());
+        assertEquals("open", values.getPropertyValue("filter.status").getValue());
+        assertEquals("%32", values.getPropertyValue("id.rev").getValue());
+        assertNull(values.getPropertyValue("status"));
+    }
+
+    @Test
+    public void testTailMatrixParameters() {
+        UrlPattern pattern = UrlPattern.compile("/files/{path*}");
+        UrlMatch match = pattern.matchStrictly("/files/a;x=1/b%20c;y=2/d", 0);
+        assertNotNull(match);
+
+        // each piece of the tail has its own parameters
+        UrlPropertyValues values = new UrlPropertyValues(match, null, null);
+        assertEquals("a;x=1/b%20c;y=2/d", values.getPropertyValue("path").getValue());
+        assertNull(values.getPropertyValue("x"));
+
+        values = new UrlPropertyValues(match, null, Charset.forName("UTF-8"), UrlPropertyValues.MATRIX_TOP_LEVEL);
+        assertEquals("a/b c/d", values.getPropertyValue("path").getValue());
+        assertEquals("1", values.getPropertyValue("x").getValue());
+        assertEquals("2", values.getPropertyValue("y").getValue());
+
+        values = new UrlPropertyValues(match, null, null, UrlPropertyValues.MATRIX_NESTED);
+        assertEquals("1", values.getPropertyValue("path.x").getValue());
+        assertEquals("2", values.getPropertyValue("path.y").getValue());
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.googlecode.webmvc.web.servlet.generics.handler;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.validation.BindException;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.Controller;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController;
+
+public class UrlPatternHandlerMappingTest {
+
+    @Test
+    public void testPrototypeController() throws Exception {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        MutablePropertyValues values = new MutablePropertyValues();
+        values.addPropertyValue("urlPattern", "/person/{id}");
+        context.registerPrototype("personController", PersonController.class, values);
+        context.registerSingleton("mapping", UrlPatternHandlerMapping.class);
+        context.refresh();
+        
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ctx/person/12");
+        request.setContextPath("/ctx");
+        HandlerMapping mapping = (HandlerMapping)context.getBean("mapping");
+        Controller controller = (Controller)mapping.getHandler(request).getHandler();
+        UrlMatch match = UrlMatch.get(request);
+        assertNotNull(match);
+        
+        // the controller and its binder use the mapping's match
+        ModelAndView mav = controller.handleRequest(request, new MockHttpServletResponse());
+        assertSame(match, UrlMatch.get(request));
+        assertEquals(12L, ((Person)mav.getModel().get("command")).getId());
+    }
+
+    @Test
+    public void testLegacyControllers() throws Exception {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        MutablePropertyValues values = new MutablePropertyValues();
+        values.addPropertyValue("urlPattern", "/person/{id}");
+        context.registerSingleton("personController", PersonController.class, values);
+        values = new MutablePropertyValues();
+        values.addPropertyValue("urlPattern", "/notused/id");
+        context.registerSingleton("legacyController", PersonController.class, values);
+        values = new MutablePropertyValues();
+        values.addPropertyValue("urlPattern", "/other/id");
+        context.registerSingleton("otherLegacyController", PersonController.class, values);
+        context.registerSingleton("mapping", UrlPatternHandlerMapping.class);
+        context.refresh();
+
+        // the legacy patterns don't take every two segment url
+        HandlerMapping mapping = (HandlerMapping)context.getBean("mapping");
+        assertNull(mapping.getHandler(new MockHttpServletRequest("GET", "/notused/12")));
+        assertNull(mapping.getHandler(new MockHttpServletRequest("GET", "/search/12")));
+        assertSame(context.getBean("personController"),
+            mapping.getHandler(new MockHttpServletRequest("GET", "/person/12")).getHandler());
+    }
+
+    @Test
+    public void testUrlEncoding() throws Exception {
+
+        // values are bound as they appear in the uri by default
+        assertEquals("a%20b", handle(null, "/person/12/a%20b").getName());
+        assertEquals("a b", handle("UTF-8", "/person/12/a%20b").getName());
+    }
+
+    private Person handle(String urlEncoding, String uri) throws Exception {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        MutablePropertyValues values = new MutablePropertyValues();
+        values.addPropertyValue("urlPattern", "/person/{id}/{name}");
+        if (urlEncoding!=null) {
+            values.addPropertyValue("urlEncoding", urlEncoding);
+        }
+        context.registerSingleton("personController", PersonController.class, values);
+        context.refresh();
+
+        Controller controller = (Controller)context.getBean("personController");
+        ModelAndView mav = controller.handleRequest(
+            new MockHttpServletRequest("GET", uri), new MockHttpServletResponse());
+        return (Person)mav.getModel().get("command");
+    }
+
+    public static class Person {
+        private long id;
+        private String name;
+        public long getId() { return id; }
+        public void setId(long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    public static class PersonController
+        extends AbstractUrlCommandController<Person> {
+        @Override
+        protected ModelAndView handle(
+            Person command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response,
+            Map<String, Object> model) {
+            return new ModelAndView("person", model);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.googlecode.webmvc.web.servlet.generics.handler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlMatch;
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+
+public class UrlPatternTreeTest {
+
+    @Test
+    public void testMatch() {
+        UrlPatternTree<String> tree = new UrlPatternTree<String>();
+        tree.add(UrlPattern.compile("/person/{id}"), "view");
+        tree.add(UrlPattern.compile("/person/{id}/edit"), "edit");
+        tree.add(UrlPattern.compile("/person/new/{type}/x"), "newX");
+
+        UrlMatch match = tree.match("/ctx/person/123", 4);
+        assertEquals("view", tree.getHandler(match));
+        assertEquals("123", match.getValue("id"));
+
+        assertEquals("view", tree.getHandler(tree.match("/person/new/", 0)));
+        assertEquals("edit", tree.getHandler(tree.match("/person/new/edit", 0)));
+        assertEquals("new", tree.match("/person/new/edit", 0).getValue("id"));
+        assertEquals("newX", tree.getHandler(tree.match("/person/new/a/x", 0)));
+        assertEquals("a", tree.match("/person/new/a/x", 0).getValue("type"));
+
+        assertNull(tree.match("/person/", 0));
+        assertNull(tree.match("/person//edit", 0));
+        assertNull(tree.match("/person/1/edit/more", 0));
+        assertNull(tree.match("/people/1", 0));
+    }
+
+    @Test
+    public void testConstraintsAndTail() {
+        UrlPatternTree<String> tree = new UrlPatternTree<String>();
+        tree.add(UrlPattern.compile("/person/{name}"), "name");
+        tree.add(UrlPattern.compile("/person/{id:\\d+}"), "id");
+        tree.add(UrlPattern.compile("/person/{path*}"), "path");
+
+        assertEquals("id", tree.getHandler(tree.match("/person/123", 0)));
+        assertEquals("name", tree.getHandler(tree.match("/person/abc", 0)));
+        UrlMatch match = tree.match("/person/a/b/", 0);
+        assertEquals("path", tree.getHandler(match));
+        assertEquals("a/b", match.getValue("path"));
+        assertEquals("", tree.match("/person/", 0).getValue("path"));
+    }
+
+    @Test
+    public void testDuplicate() {
+        UrlPatternTree<String> tree = new UrlPatternTree<String>();
+        tree.add(UrlPattern.compile("/person/{id}"), "a");
+        try {
+            tree.add(UrlPattern.compile("/person/{name}"), "b");
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.googlecode.webmvc.web.servlet.generics.mvc;
+
+import static org.junit.Assert.*;
+
+import java.beans.PropertyEditorSupport;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.beans.propertyeditors.CustomNumberEditor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BindException;
+import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.servlet.ModelAndView;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.SharedPropertyEditor;
+
+public class AbstractCommandControllerTest {
+
+    @Test
+    public void testReuseBinderTemplates() throws Exception {
+        final PersonController controller = new PersonController(true);
+        controller.setReuseBinderTemplates(true);
+        ServletRequestDataBinder first = controller.createBinder(new MockHttpServletRequest(), new Person());
+        assertEquals(1, controller.initCount);
+
+        // a binder created on another thread gets the same configuration
+        ServletRequestDataBinder second = createBinderOnOtherThread(controller);
+        assertEquals(1, controller.initCount);
+        assertArrayEquals(new String[] {"id"}, second.getAllowedFields());
+        assertSame(first.findCustomEditor(Long.class, "id"), second.findCustomEditor(Long.class, "id"));
+
+        // and binds with it
+        assertBinds(controller);
+        assertEquals(1, controller.initCount);
+    }
+
+    @Test
+    public void testReuseBinderTemplatesWithUnsharedEditors() throws Exception {
+        final PersonController controller = new PersonController(false);
+        controller.setReuseBinderTemplates(true);
+        ServletRequestDataBinder first = controller.createBinder(new MockHttpServletRequest(), new Person());
+        assertEquals(2, controller.initCount);
+
+        // the editors aren't shared, so every binder is configured
+        ServletRequestDataBinder second = createBinderOnOtherThread(controller);
+        assertEquals(3, controller.initCount);
+        assertArrayEquals(new String[] {"id"}, second.getAllowedFields());
+        assertNotNull(second.findCustomEditor(Long.class, "id"));
+        assertNotSame(first.findCustomEditor(Long.class, "id"), second.findCustomEditor(Long.class, "id"));
+        assertBinds(controller);
+    }
+
+    private static ServletRequestDataBinder createBinderOnOtherThread(final PersonController controller)
+        throws Exception {
+        final ServletRequestDataBinder[] binder = new ServletRequestDataBinder[1];
+        Thread thread = new Thread() {
+            public void run() {
+                try {
+                    binder[0] = controller.createBinder(new MockHttpServletRequest(), new Person());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNotNull(binder[0]);
+        return binder[0];
+    }
+
+    private static void assertBinds(PersonController controller) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("id", "1,234");
+        request.addParameter("name", "Charles");
+        Person person = new Person();
+        controller.createBinder(request, person).bind(request);
+        assertEquals(Long.valueOf(1234), person.getId());
+        assertNull(person.getName());
+    }
+
+    public static class Person {
+        private Long id;
+        private String name;
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    public static class PersonController
+        extends AbstractCommandController<Person> {
+        private final boolean shared;
+        private int initCount;
+        public PersonController(boolean shared) {
+            this.shared = shared;
+        }
+        @Override
+        protected void initBinder(HttpServletRequest request, ServletRequestDataBinder binder) {
+            initCount++;
+            binder.setAllowedFields(new String[] {"id"});
+            binder.registerCustomEditor(Long.class, "id", (shared)
+                ? new SharedNumberEditor()
+                : new CustomNumberEditor(Long.class, NumberFormat.getInstance(Locale.US), true));
+        }
+        @Override
+        protected ModelAndView handle(
+            Person command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response,
+            Map<String, Object> model) {
+            return new ModelAndView("person", model);
+        }
+    }
+
+    public static class SharedNumberEditor
+        extends PropertyEditorSupport
+        implements SharedPropertyEditor {
+        private final ThreadLocal<Object> value = new ThreadLocal<Object>();
+        @Override
+        public void setAsText(String text) {
+            setValue(Long.valueOf(text.replace(",", "")));
+        }
+        @Override
+        public void setValue(Object value) {
+            this.value.set(value);
+        }
+        @Override
+        public Object getValue() {
+            return value.get();
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.googlecode.webmvc.web.servlet.generics.mvc;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.validation.BindException;
+import org.springframework.web.servlet.ModelAndView;
+
+public class AbstractUrlCommandControllerTest {
+
+    @Test
+    public void testLegacyPattern() throws Exception {
+        PersonController controller = new PersonController();
+        controller.setUrlPattern("/notused/id/name");
+
+        // shorter urls bind what they have, longer ones ignore the rest
+        Person person = handle(controller, "/notused/123");
+        assertEquals(Long.valueOf(123), person.getId());
+        assertNull(person.getName());
+        person = handle(controller, "/notused/123/Charles/more");
+        assertEquals(Long.valueOf(123), person.getId());
+        assertEquals("Charles", person.getName());
+    }
+
+    @Test
+    public void testTemplatePattern() throws Exception {
+        PersonController controller = new PersonController();
+        controller.setUrlPattern("/person/{id}/{name}");
+        Person person = handle(controller, "/person/123/Charles");
+        assertEquals(Long.valueOf(123), person.getId());
+        assertEquals("Charles", person.getName());
+
+        // templates must match the whole url
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNull(controller.handleRequest(new MockHttpServletRequest("GET", "/person/123"), response));
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatus());
+    }
+
+    @Test
+    public void testBindParameterMap() throws Exception {
+        PersonController controller = new PersonController();
+        controller.setUrlPattern("/person/{id}");
+        controller.setBindParameters(true);
+        controller.setBindParameterMap(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/person/12");
+        request.addParameter("id", "99");
+        request.addParameter("name", "Charles");
+        ModelAndView mav = controller.handleRequest(request, new MockHttpServletResponse());
+
+        // the url still wins
+        Person person = (Person)mav.getModel().get("command");
+        assertEquals(Long.valueOf(12), person.getId());
+        assertEquals("Charles", person.getName());
+    }
+
+    private static Person handle(PersonController controller, String uri) throws Exception {
+        ModelAndView mav = controller.handleRequest(
+            new MockHttpServletRequest("GET", uri), new MockHttpServletResponse());
+        return (Person)mav.getModel().get("command");
+    }
+
+    public static class Person {
+        private Long id;
+        private String name;
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    public static class PersonController
+        extends AbstractUrlCommandController<Person> {
+        @Override
+        protected ModelAndView handle(
+            Person command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response,
+            Map<String, Object> model) {
+            return new ModelAndView("person", model);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.googlecode.webmvc.web.servlet.generics.mvc;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BindException;
+import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.servlet.ModelAndView;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.FieldMatcher;
+import com.googlecode.webmvc.web.servlet.generics.bind.FieldMatchingServletRequestDataBinder;
+import com.googlecode.webmvc.web.servlet.generics.bind.ParameterMapServletRequestDataBinder;
+
+public class ControllerBindersTest {
+
+    @Test
+    public void testCreateBinder() {
+        FieldMatcher fieldMatcher = FieldMatcher.compile(new String[] {"id"}, null);
+        Object command = new Object();
+
+        ServletRequestDataBinder binder = ControllerBinders.createBinder(command, "command", null, false);
+        assertEquals(ServletRequestDataBinder.class, binder.getClass());
+        assertSame(command, binder.getTarget());
+        assertEquals("command", binder.getObjectName());
+
+        binder = ControllerBinders.createBinder(command, "command", null, true);
+        assertEquals(ParameterMapServletRequestDataBinder.class, binder.getClass());
+
+        // the field matcher wins
+        binder = ControllerBinders.createBinder(command, "command", fieldMatcher, true);
+        assertEquals(FieldMatchingServletRequestDataBinder.class, binder.getClass());
+        binder = ControllerBinders.createBinder(command, "command", fieldMatcher, false);
+        assertEquals(FieldMatchingServletRequestDataBinder.class, binder.getClass());
+    }
+
+    @Test
+    public void testRegisterGenericEditors() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter("id", "12");
+        request.addParameter("ids", new String[] {"1", "2"});
+        request.addParameter("name", "Charles");
+
+        // bound by the controller's type argument
+        Command<Long> command = new Command<Long>();
+        ServletRequestDataBinder binder = ControllerBinders.createBinder(command, "command", null, false);
+        ControllerBinders.registerGenericEditors(binder, CommandController.class, AbstractCommandController.class);
+        binder.bind(request);
+        assertFalse(binder.getBindingResult().hasErrors());
+        assertEquals(Long.valueOf(12), command.getId());
+        assertEquals(Arrays.asList(new Long[] {Long.valueOf(1), Long.valueOf(2)}), command.getIds());
+        assertEquals("Charles", command.getName());
+
+        // bound by the command's superclass
+        LongCommand longCommand = new LongCommand();
+        binder = ControllerBinders.createBinder(longCommand, "command", null, false);
+        ControllerBinders.registerGenericEditors(binder, LongCommandController.class, AbstractCommandController.class);
+        binder.bind(request);
+        assertEquals(Long.valueOf(12), longCommand.getId());
+
+        // values that can't be converted are binding errors
+        request = new MockHttpServletRequest();
+        request.addParameter("id", "twelve");
+        binder = ControllerBinders.createBinder(new Command<Long>(), "command", null, false);
+        ControllerBinders.registerGenericEditors(binder, CommandController.class, AbstractCommandController.class);
+        binder.bind(request);
+        assertTrue(binder.getBindingResult().hasFieldErrors("id"));
+    }
+
+    public static class Command<I> {
+        private I id;
+        private List<I> ids;
+        private String name;
+        public I getId() { return id; }
+        public void setId(I id) { this.id = id; }
+        public List<I> getIds() { return ids; }
+        public void setIds(List<I> ids) { this.ids = ids; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    public static class LongCommand
+        extends Command<Long> {
+    }
+
+    public static class CommandController
+        extends AbstractCommandController<Command<Long>> {
+        @Override
+        protected ModelAndView handle(
+            Command<Long> command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response,
+            Map<String, Object> model) {
+            return new ModelAndView("command", model);
+        }
+    }
+
+    public static class LongCommandController
+        extends AbstractCommandController<LongCommand> {
+        @Override
+        protected ModelAndView handle(
+            LongCommand command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response,
+            Map<String, Object> model) {
+            return new ModelAndView("command", model);
+        }
+    }
+
+}
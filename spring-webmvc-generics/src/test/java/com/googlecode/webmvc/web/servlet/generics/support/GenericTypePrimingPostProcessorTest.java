@@ -0,0 +1,71 @@
+package com.googlecode.webmvc.web.servlet.generics.support;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.validation.Errors;
+
+import com.googlecode.webmvc.validation.AbstractGenericValidator;
+import com.googlecode.webmvc.web.servlet.generics.util.GenericsUtil;
+import com.googlecode.webmvc.web.servlet.generics.util.TypeResolutionSnapshot;
+
+public class GenericTypePrimingPostProcessorTest {
+
+    @Test
+    public void testPrime() throws Exception {
+        GenericsUtil.clearCache();
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBeanDefinition("stringValidator", lazy(StringValidator.class));
+        context.registerBeanDefinition("longValidator", lazy(LongValidator.class));
+        context.registerBeanDefinition("other", new RootBeanDefinition(Object.class));
+        GenericTypePrimingPostProcessor processor = new GenericTypePrimingPostProcessor();
+        processor.setThreads(2);
+        context.addBeanFactoryPostProcessor(processor);
+        context.refresh();
+        try {
+
+            // the timings are reported
+            assertEquals(
+                new HashSet<String>(Arrays.asList(StringValidator.class.getName(), LongValidator.class.getName())),
+                processor.getResolutionTimes().keySet());
+
+            // and the cache is primed, without creating the validators
+            File file = File.createTempFile("generics", ".snapshot");
+            try {
+                GenericsUtil.writeSnapshot(file);
+                assertEquals(2, TypeResolutionSnapshot.read(file).size());
+            } finally {
+                file.delete();
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static RootBeanDefinition lazy(Class<?> clazz) {
+        RootBeanDefinition definition = new RootBeanDefinition(clazz);
+        definition.setLazyInit(true);
+        return definition;
+    }
+
+    public static class StringValidator
+        extends AbstractGenericValidator<String> {
+        @Override
+        protected void doValidate(String target, Errors errors) {
+        }
+    }
+
+    public static class LongValidator
+        extends AbstractGenericValidator<Long> {
+        @Override
+        protected void doValidate(Long target, Errors errors) {
+        }
+    }
+
+}
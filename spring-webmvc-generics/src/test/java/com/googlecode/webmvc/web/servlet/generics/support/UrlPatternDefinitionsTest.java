@@ -0,0 +1,76 @@
+package com.googlecode.webmvc.web.servlet.generics.support;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.validation.BindException;
+import org.springframework.web.servlet.ModelAndView;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController;
+
+public class UrlPatternDefinitionsTest {
+
+    @Test
+    public void testFindUrlPatterns() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        RootBeanDefinition prototype = controller("/person/{id}");
+        prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        context.registerBeanDefinition("prototype", prototype);
+        RootBeanDefinition lazy = controller("/person/{id}/edit");
+        lazy.setLazyInit(true);
+        context.registerBeanDefinition("lazy", lazy);
+        context.registerBeanDefinition("none", controller(null));
+        context.refresh();
+        try {
+            int created = PersonController.created;
+            Map<String, UrlPattern> patterns = UrlPatternDefinitions.findUrlPatterns(context);
+            assertEquals(Arrays.asList("prototype", "lazy"), Arrays.asList(
+                patterns.keySet().toArray(new String[patterns.size()])));
+            assertEquals("/person/{id}", patterns.get("prototype").getPattern());
+            assertEquals("/person/{id}/edit", patterns.get("lazy").getPattern());
+
+            // only the singleton without a pattern was created
+            assertEquals(created, PersonController.created);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static RootBeanDefinition controller(String pattern) {
+        MutablePropertyValues values = new MutablePropertyValues();
+        if (pattern!=null) {
+            values.addPropertyValue(UrlPatternDefinitions.URL_PATTERN_PROPERTY, pattern);
+        }
+        return new RootBeanDefinition(PersonController.class, values);
+    }
+
+    public static class PersonController
+        extends AbstractUrlCommandController<Object> {
+
+        private static int created;
+
+        public PersonController() {
+            created++;
+        }
+
+        @Override
+        protected ModelAndView handle(
+            Object command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response,
+            Map<String, Object> model) {
+            return null;
+        }
+    }
+
+}
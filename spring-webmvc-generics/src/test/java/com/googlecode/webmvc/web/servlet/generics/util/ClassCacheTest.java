@@ -0,0 +1,111 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import static org.junit.Assert.*;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+public class ClassCacheTest {
+
+    @Test
+    public void testGet() {
+        CountingCache cache = new CountingCache();
+        Object value = cache.get(String.class);
+        assertSame(value, cache.get(String.class));
+        assertEquals(1, cache.computations);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testForeignClassSurvivesGc()
+        throws Exception {
+        ClassLoader loader = newClassLoader();
+        Class<?> clazz = loader.loadClass(Foreign.class.getName());
+        assertNotSame(Foreign.class, clazz);
+
+        CountingCache cache = new CountingCache();
+        cache.get(clazz);
+        System.gc();
+        System.gc();
+        cache.get(clazz);
+        assertEquals(1, cache.computations);
+    }
+
+    @Test
+    public void testAcceptAndClearClassLoader()
+        throws Exception {
+        ClassLoader loader = newClassLoader();
+        Class<?> clazz = loader.loadClass(Foreign.class.getName());
+
+        CountingCache cache = new CountingCache();
+        ClassCache.acceptClassLoader(loader);
+        try {
+            Object value = cache.get(clazz);
+            System.gc();
+            assertSame(value, cache.get(clazz));
+            assertEquals(1, cache.computations);
+        } finally {
+            ClassCache.clearClassLoader(loader);
+        }
+        assertEquals(0, cache.size());
+        cache.get(clazz);
+        assertEquals(2, cache.computations);
+    }
+
+    @Test
+    public void testIsCacheSafe()
+        throws Exception {
+        assertTrue(ClassCache.isCacheSafe(String.class));
+        assertTrue(ClassCache.isCacheSafe(ClassCacheTest.class));
+
+        // a child of this library's ClassLoader, ie: a webapp's
+        final ClassLoader parent = ClassCache.class.getClassLoader();
+        URL location = ClassCacheTest.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader child = new URLClassLoader(new URL[] { location }, parent) {
+            @Override
+            protected synchronized Class<?> loadClass(String name, boolean resolve)
+                throws ClassNotFoundException {
+                if (!name.equals(Foreign.class.getName())) {
+                    return super.loadClass(name, resolve);
+                }
+                Class<?> clazz = findLoadedClass(name);
+                return (clazz!=null) ? clazz : findClass(name);
+            }
+        };
+        Class<?> clazz = child.loadClass(Foreign.class.getName());
+        assertNotSame(Foreign.class, clazz);
+        assertFalse(ClassCache.isCacheSafe(clazz));
+
+        // unless it is accepted
+        ClassCache.acceptClassLoader(child);
+        try {
+            assertTrue(ClassCache.isCacheSafe(clazz));
+        } finally {
+            ClassCache.clearClassLoader(child);
+        }
+        assertFalse(ClassCache.isCacheSafe(clazz));
+    }
+
+    private static ClassLoader newClassLoader() {
+        URL location = ClassCacheTest.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[] { location }, null);
+    }
+
+    public static class Foreign {
+    }
+
+    private static class CountingCache
+        extends ClassCache<Object> {
+
+        private int computations;
+
+        @Override
+        protected Object computeValue(Class<?> clazz) {
+            computations++;
+            return new Object();
+        }
+    }
+
+}
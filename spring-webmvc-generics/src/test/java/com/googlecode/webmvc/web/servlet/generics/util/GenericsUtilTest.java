@@ -2,7 +2,22 @@ package com.googlecode.webmvc.web.servlet.generics.util;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -40,6 +55,251 @@ public class GenericsUtilTest {
         assertEquals(List.class, testTVCBN(Balls.class, "A", true));
     }
 
+    @Test
+    public void testGetTypeVariableClassByNameCached() {
+        GenericsUtil.clearCache();
+        for (int i=0; i<2; i++) {
+            assertEquals(String.class, testTVCBN(SuperMindFuck.class, TestGenericAbstractClass.class, "D", true));
+            assertEquals(Integer.class, testTVCBN(SuperMindFuck.class, TestGenericInterface.class, "A", true));
+            assertNull(testTVCBN(SuperMindFuck.class, TestGenericInterface.class, "A", false));
+            assertNull(testTVCBN(SuperMindFuck.class, null, "XX", true));
+        }
+        GenericsUtil.clearCache();
+        assertEquals(String.class, testTVCBN(SuperMindFuck.class, TestGenericAbstractClass.class, "D", true));
+    }
+
+    @Test
+    public void testGetTypeVariableClassByNameIndirect() {
+        assertEquals(Long.class, testTVCBN(Indirect.class, TestGenericAbstractClass.class, "D", true));
+        assertEquals(Long.class, testTVCBN(Indirect.class, TestGenericInterface.class, "A", true));
+        assertEquals(Long.class, testTVCBN(Indirect.class, IndirectAbstractClass.class, "G", true));
+        assertEquals(Long.class, testTVCBN(Indirect.class, "G", true));
+        assertNull(testTVCBN(Indirect.class, TestGenericAbstractClass.class, "D", false));
+        
+        assertEquals(String.class, testTVCBN(IndirectInterfaceImpl.class, TestGenericInterface.class, "A", true));
+        assertEquals(String.class, testTVCBN(IndirectInterfaceImpl.class, IndirectInterface.class, "H", true));
+        
+        assertEquals(Integer.class, testTVCBN(SuperMindFuck.class, "A", true));
+        assertEquals(String.class, testTVCBN(SuperMindFuck.class, "D", true));
+    }
+    
+    @Test
+    public void testTypeVariableResolver() {
+        TypeVariableResolver resolver = TypeVariableResolver.forClass(Indirect.class);
+        assertSame(resolver, TypeVariableResolver.forClass(Indirect.class));
+        assertEquals(Long.class, resolver.getType(TestGenericAbstractClass.class, "D"));
+        assertNull(resolver.getType(TestGenericAbstractClass.class, "XX"));
+        
+        resolver = TypeVariableResolver.forClass(Balls.class);
+        assertTrue(resolver.getType(TestGenericInterface.class, "A") instanceof ParameterizedType);
+        assertEquals(List.class, resolver.getClass(TestGenericInterface.class, "A"));
+        assertEquals(List[].class, TypeVariableResolver.forClass(ArrayBalls.class).getClass("A"));
+    }
+
+    @Test
+    public void testGeneratedTypeBindings() {
+
+        // a binding that disagrees with reflection, ie: a stale one, is ignored
+        assertEquals(Long.class, GeneratedTypeBindings.getBoundClass(Generated.class, TestGenericInterface.class, "A"));
+        assertNull(testTVCBN(Generated.class, TestGenericInterface.class, "A", true));
+        assertFalse(GeneratedTypeBindings.confirm(Generated.class, TestGenericInterface.class, "A", null));
+
+        // as is one whose class can't be loaded
+        assertEquals(String.class, testTVCBN(Generated.class, TestGenericAbstractClass.class, "D", true));
+        assertNull(GeneratedTypeBindings.getBoundClass(Generated.class, TestGenericAbstractClass.class, "D"));
+        assertNull(GeneratedTypeBindings.getBoundClass(Balls.class, TestGenericInterface.class, "A"));
+        assertTrue(GeneratedTypeBindings.confirm(Balls.class, TestGenericInterface.class, "A", List.class));
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        File file = File.createTempFile("generics", ".snapshot");
+        try {
+            GenericsUtil.clearCache();
+            assertEquals(Long.class, testTVCBN(Indirect.class, TestGenericAbstractClass.class, "D", true));
+            assertNull(testTVCBN(Indirect.class, TestGenericAbstractClass.class, "XX", true));
+            GenericsUtil.writeSnapshot(file);
+            
+            TypeResolutionSnapshot snapshot = TypeResolutionSnapshot.read(file);
+            assertEquals(2, snapshot.size());
+            assertEquals(Long.class.getName(), snapshot.get(
+                Indirect.class, TestGenericAbstractClass.class, "D", true).getResolvedClassName());
+            assertNull(snapshot.get(Indirect.class, TestGenericAbstractClass.class, "XX", true)
+                .getResolvedClassName());
+            assertNull(snapshot.get(Indirect.class, TestGenericInterface.class, "A", true));
+            
+            GenericsUtil.clearCache();
+            GenericsUtil.loadSnapshot(file);
+            assertEquals(Long.class, testTVCBN(Indirect.class, TestGenericAbstractClass.class, "D", true));
+            assertNull(testTVCBN(Indirect.class, TestGenericAbstractClass.class, "XX", true));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSnapshotIntermediateClassChanged() throws Exception {
+        File file = File.createTempFile("generics", ".snapshot");
+        File dir = new File(file.getPath()+".classes");
+        try {
+            // load copies of the classes so that the build output isn't touched
+            ClassLoader loader = copyClasses(dir, GenericsUtilTest.class);
+            Class<?> indirect = loader.loadClass(Indirect.class.getName());
+            Class<?> generic = loader.loadClass(TestGenericAbstractClass.class.getName());
+            assertNotSame(Indirect.class, indirect);
+
+            GenericsUtil.clearCache();
+            assertEquals(Long.class, testTVCBN(indirect, generic, "D", true));
+            GenericsUtil.writeSnapshot(file);
+            assertNotNull(TypeResolutionSnapshot.read(file).get(
+                indirect, generic, "D", true));
+
+            // IndirectAbstractClass sits between the two
+            File classFile = new File(dir, IndirectAbstractClass.class.getName().replace('.', '/')+".class");
+            assertTrue(classFile.setLastModified(classFile.lastModified()-60000));
+            assertNull(TypeResolutionSnapshot.read(file).get(
+                indirect, generic, "D", true));
+        } finally {
+            GenericsUtil.clearCache();
+            delete(dir);
+            file.delete();
+        }
+    }
+
+    private static ClassLoader copyClasses(File dir, Class<?> outer)
+        throws IOException {
+
+        // the returned loader finds these classes, and their class files, in dir first
+        List<Class<?>> classes = new ArrayList<Class<?>>(Arrays.asList(outer.getDeclaredClasses()));
+        classes.add(outer);
+        final Set<String> names = new HashSet<String>();
+        for (Class<?> clazz : classes) {
+            String path = clazz.getName().replace('.', '/')+".class";
+            File target = new File(dir, path);
+            target.getParentFile().mkdirs();
+            InputStream in = GenericsUtilTest.class.getClassLoader().getResourceAsStream(path);
+            OutputStream out = new FileOutputStream(target);
+            try {
+                byte[] buffer = new byte[4096];
+                for (int read=in.read(buffer); read!=-1; read=in.read(buffer)) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+                out.close();
+            }
+            names.add(clazz.getName());
+        }
+        return new URLClassLoader(new URL[] { dir.toURI().toURL() }, GenericsUtilTest.class.getClassLoader()) {
+            @Override
+            protected synchronized Class<?> loadClass(String name, boolean resolve)
+                throws ClassNotFoundException {
+                if (!names.contains(name)) {
+                    return super.loadClass(name, resolve);
+                }
+                Class<?> clazz = findLoadedClass(name);
+                return (clazz!=null) ? clazz : findClass(name);
+            }
+            @Override
+            public URL getResource(String name) {
+                URL url = findResource(name);
+                return (url!=null) ? url : super.getResource(name);
+            }
+        };
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children!=null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void testGenericSupertypes() {
+        ParameterizedType[] types = GenericsUtil.getGenericTypes(MindFuck.class);
+        assertEquals(2, types.length);
+        assertEquals(TestGenericAbstractClass.class, types[0].getRawType());
+        assertEquals(TestGenericInterface.class, types[1].getRawType());
+        types[0] = null;
+        assertEquals(TestGenericAbstractClass.class, GenericsUtil.getGenericTypes(MindFuck.class)[0].getRawType());
+        assertEquals(0, GenericsUtil.getGenericTypes(SuperMindFuck.class).length);
+        
+        TypeVariable<?>[] vars = GenericsUtil.getGenericTypeParameters(TestGenericInterface2Impl.class);
+        assertEquals(2, vars.length);
+        vars[0] = null;
+        assertNotNull(GenericsUtil.getGenericTypeParameters(TestGenericInterface2Impl.class)[0]);
+        assertEquals(1, GenericsUtil.getGenericTypeParameters(MindFuck.class, TestGenericInterface.class).length);
+        
+        final List<Type> visited = new ArrayList<Type>();
+        GenericsUtil.forEachGenericSupertype(MindFuck.class, new GenericSupertypeCallback() {
+            public boolean doWith(ParameterizedType type, TypeVariable<?>[] typeVariables, Type[] typeArguments) {
+                assertEquals(1, typeVariables.length);
+                visited.add(typeArguments[0]);
+                return true;
+            }
+        });
+        assertEquals(Arrays.<Type>asList(String.class, Integer.class), visited);
+        
+        visited.clear();
+        GenericsUtil.forEachGenericSupertype(MindFuck.class, new GenericSupertypeCallback() {
+            public boolean doWith(ParameterizedType type, TypeVariable<?>[] typeVariables, Type[] typeArguments) {
+                visited.add(type);
+                return false;
+            }
+        });
+        assertEquals(1, visited.size());
+    }
+
+    @Test
+    public void testGetTypeVariableType() {
+        ResolvedType type = GenericsUtil.getTypeVariableType(Balls.class, TestGenericInterface.class, "A");
+        assertSame(type, GenericsUtil.getTypeVariableType(Balls.class, TestGenericInterface.class, "A"));
+        assertEquals(List.class, type.getRawClass());
+        assertEquals(1, type.getGenericCount());
+        assertEquals(String.class, type.getGeneric(0).getRawClass());
+        assertEquals(String.class, type.getElementType().getRawClass());
+        assertEquals("java.util.List<java.lang.String>", type.toString());
+        
+        type = GenericsUtil.getTypeVariableType(ArrayBalls.class, null, "A");
+        assertTrue(type.isArray());
+        assertEquals(List[].class, type.getRawClass());
+        assertEquals(String.class, type.getElementType().getElementType().getRawClass());
+        
+        type = GenericsUtil.getTypeVariableType(NestedIndirect.class, TestGenericInterface.class, "A");
+        assertEquals(Map.class, type.getRawClass());
+        assertEquals(Long.class, type.getMapKeyType().getRawClass());
+        assertEquals(Integer.class, type.getMapValueType().getElementType().getRawClass());
+        
+        type = ResolvedType.forClass(LongList.class);
+        assertEquals(Long.class, type.getElementType().getRawClass());
+        assertNull(type.getMapKeyType());
+        
+        assertNull(GenericsUtil.getTypeVariableType(Balls.class, TestGenericInterface.class, "XX"));
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        Type id = Holder.class.getMethod("getId").getGenericReturnType();
+        Type ids = Holder.class.getMethod("getIds").getGenericReturnType();
+        
+        // bound by the type's own arguments
+        ResolvedType type = GenericsUtil.getTypeVariableType(HolderBalls.class, TestGenericInterface.class, "A");
+        assertEquals(Integer.class, type.resolve(id).getRawClass());
+        assertEquals(Integer.class, type.resolve(ids).getElementType().getRawClass());
+        
+        // bound by a superclass
+        type = ResolvedType.forClass(LongHolder.class);
+        assertEquals(Long.class, type.resolve(id).getRawClass());
+        assertEquals("java.util.List<java.lang.Long>", type.resolve(ids).toString());
+        
+        // not bound at all
+        assertEquals(Object.class, ResolvedType.forClass(Holder.class).resolve(id).getRawClass());
+    }
+
     private static Class<?> testTVCBN(Class<?> clazz, Class<?> gclazz, String name, Boolean recursive) {
         return GenericsUtil.getTypeVariableClassByName(clazz, gclazz, name, recursive);
     }
@@ -109,6 +369,68 @@ public class GenericsUtilTest {
         
     }
     
+    class ArrayBalls implements TestGenericInterface<List<String>[]> {
+        
+    }
+    
+    
+    
+    
+    @SuppressWarnings("unchecked")
+    class Generated 
+        extends TestGenericAbstractClass<String>
+        implements TestGenericInterface {
+        
+    }
+    
+    
+    
+    
+    abstract class IndirectAbstractClass<G>
+        extends TestGenericAbstractClass<G>
+        implements TestGenericInterface<G> {
+        
+    }
+    
+    class Indirect extends IndirectAbstractClass<Long> {
+        
+    }
+    
+    class NestedIndirect extends NestedIndirectAbstractClass<Long, Integer> {
+        
+    }
+    
+    abstract class NestedIndirectAbstractClass<K, V>
+        implements TestGenericInterface<Map<K, Set<V>>> {
+        
+    }
+    
+    @SuppressWarnings("serial")
+    class LongList extends ArrayList<Long> {
+        
+    }
+    
+    class Holder<I> {
+        public I getId() { return null; }
+        public List<I> getIds() { return null; }
+    }
+    
+    class LongHolder extends Holder<Long> {
+        
+    }
+    
+    class HolderBalls implements TestGenericInterface<Holder<Integer>> {
+        
+    }
+    
+    interface IndirectInterface<H> extends TestGenericInterface<H> {
+        
+    }
+    
+    class IndirectInterfaceImpl implements IndirectInterface<String> {
+        
+    }
+    
     
     
 }
@@ -0,0 +1,80 @@
+package com.googlecode.webmvc.web.servlet.generics.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    @Test
+    public void testGet() {
+        LruCache<String, String> cache = new UpperCaseCache(10);
+        assertEquals("A", cache.get("a"));
+        assertSame(cache.get("a"), cache.get("a"));
+        assertNull(cache.get(""));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testEviction() {
+        LruCache<String, String> cache = new UpperCaseCache(2);
+        String a = cache.get("a");
+        cache.get("b");
+        assertSame(a, cache.get("a"));
+        cache.get("c");
+        assertEquals(2, cache.size());
+
+        // b was the least recently used
+        long misses = cache.getMissCount();
+        assertSame(a, cache.get("a"));
+        cache.get("c");
+        assertEquals(misses, cache.getMissCount());
+        cache.get("b");
+        assertEquals(misses+1, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testBatchEviction() {
+        LruCache<String, String> cache = new UpperCaseCache(16);
+        for (int i=0; i<16; i++) {
+            cache.get("k"+i);
+        }
+        cache.get("k0");
+        cache.get("k16");
+
+        // an eighth was evicted, least recently used first
+        assertEquals(14, cache.size());
+        long misses = cache.getMissCount();
+        cache.get("k0");
+        cache.get("k4");
+        cache.get("k16");
+        assertEquals(misses, cache.getMissCount());
+        cache.get("k1");
+        assertEquals(misses+1, cache.getMissCount());
+    }
+
+    @Test
+    public void testCapacity() {
+        try {
+            new UpperCaseCache(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static class UpperCaseCache
+        extends LruCache<String, String> {
+        UpperCaseCache(int capacity) {
+            super(capacity);
+        }
+        @Override
+        protected String computeValue(String key) {
+            return (key.length()>0) ? new String(key.toUpperCase()) : null;
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.validation.BindException;
+import org.springframework.web.servlet.ModelAndView;
+
+import com.googlecode.webmvc.web.servlet.generics.mvc.AbstractUrlCommandController;
+import com.googlecode.webmvc.web.servlet.generics.support.UrlPatternDefinitions;
+
+public class LinkBuilderTest {
+
+    @Test
+    public void testRoutes() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        RootBeanDefinition prototype = controller(PersonController.class, "/person/{id}");
+        prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        context.registerBeanDefinition("personController", prototype);
+        RootBeanDefinition lazy = controller(EditController.class, "/person/{id}/edit");
+        lazy.setLazyInit(true);
+        context.registerBeanDefinition("editController", lazy);
+        context.registerBeanDefinition("first", controller(SearchController.class, "/search/{q}"));
+        context.registerBeanDefinition("second", controller(SearchController.class, "/find/{q}"));
+        context.refresh();
+        try {
+            int created = PersonController.created;
+            LinkBuilder linkBuilder = new LinkBuilder();
+            linkBuilder.setApplicationContext(context);
+
+            // the prototype and lazy controllers weren't created
+            assertEquals(created, PersonController.created);
+
+            // by name
+            Map<String, Object> values = Collections.<String, Object>singletonMap("id", Long.valueOf(12));
+            assertTrue(linkBuilder.hasRoute("personController"));
+            assertFalse(linkBuilder.hasRoute("linkBuilder"));
+            assertEquals("/person/12", linkBuilder.getUrl("personController", values));
+            assertEquals("/person/12/edit", linkBuilder.getUrl("editController", values));
+            assertEquals("/find/x", linkBuilder.getUrl("second", Collections.singletonMap("q", "x")));
+
+            // by class, unless more than one controller has it
+            assertEquals("/person/12", linkBuilder.getUrl(PersonController.class, values));
+            assertEquals("/person/12/edit", linkBuilder.getUrl(EditController.class, values));
+            try {
+                linkBuilder.getUrl(SearchController.class, Collections.singletonMap("q", "x"));
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                linkBuilder.getUrl("missing", values);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    static RootBeanDefinition controller(Class<?> clazz, String pattern) {
+        MutablePropertyValues values = new MutablePropertyValues();
+        values.addPropertyValue(UrlPatternDefinitions.URL_PATTERN_PROPERTY, pattern);
+        return new RootBeanDefinition(clazz, values);
+    }
+
+    public static class PersonController
+        extends AbstractUrlCommandController<Object> {
+
+        private static int created;
+
+        public PersonController() {
+            created++;
+        }
+
+        @Override
+        protected ModelAndView handle(
+            Object command, BindException errors,
+            HttpServletRequest request, HttpServletResponse response,
+            Map<String, Object> model) {
+            return null;
+        }
+    }
+
+    public static class EditController
+        extends PersonController {
+    }
+
+    public static class SearchController
+        extends PersonController {
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import static org.junit.Assert.*;
+
+import java.net.URLEncoder;
+
+import org.junit.Test;
+
+public class TokenEncoderTest {
+
+    @Test
+    public void testUnchanged() {
+        String id = "12345";
+        assertSame(id, TokenEncoder.encode(id, TokenEncoder.PATH_SEGMENT));
+        assertSame(id, TokenEncoder.encode(id, TokenEncoder.QUERY));
+        StringBuilder buff = new StringBuilder("/");
+        TokenEncoder.encode("a-b_c.d~e", TokenEncoder.PATH_SEGMENT, buff);
+        assertEquals("/a-b_c.d~e", buff.toString());
+    }
+
+    @Test
+    public void testPathSegment() {
+        assertEquals("a%20b", TokenEncoder.encode("a b", TokenEncoder.PATH_SEGMENT));
+        assertEquals("a%2Fb%3Bc%2Bd%3Fe", TokenEncoder.encode("a/b;c+d?e", TokenEncoder.PATH_SEGMENT));
+        assertEquals("a=b&c", TokenEncoder.encode("a=b&c", TokenEncoder.PATH_SEGMENT));
+    }
+
+    @Test
+    public void testQuery() {
+        assertEquals("a+b", TokenEncoder.encode("a b", TokenEncoder.QUERY));
+        assertEquals("a%3Db%26c%2Bd/e", TokenEncoder.encode("a=b&c+d/e", TokenEncoder.QUERY));
+    }
+
+    @Test
+    public void testUtf8() throws Exception {
+        String value = "Caf\u00e9 \u20ac \ud83d\ude00";
+        assertEquals(URLEncoder.encode(value, "UTF-8"), TokenEncoder.encode(value, TokenEncoder.QUERY));
+        assertEquals("%3F", TokenEncoder.encode("\ud83d", TokenEncoder.PATH_SEGMENT));
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+
+public class TokenReplacementRedirectViewTest {
+
+    @Test
+    public void testAppendModelAttributes() {
+        Map<String, Object> model = new LinkedHashMap<String, Object>();
+        model.put("id", Long.valueOf(12));
+        model.put("name", "Charles Darwin");
+        model.put("tags", Arrays.asList("a", "b&c"));
+        model.put("command", new Object());
+        model.put("secret", "x");
+
+        TokenReplacementRedirectView view = new TokenReplacementRedirectView();
+        view.setUrl("/person/{id}");
+        view.setExcludedAttributes(new String[] {"secret"});
+        assertEquals("/person/12?name=Charles+Darwin&tags=a&tags=b%26c",
+            append(view, "/person/12", model));
+        assertEquals("/person/12?tab=1&name=Charles+Darwin&tags=a&tags=b%26c#top",
+            append(view, "/person/12?tab=1#top", model));
+
+        view.setIncludedAttributes(new String[] {"n*"});
+        assertEquals("/person/12?name=Charles+Darwin", append(view, "/person/12?", model));
+        view.setIncludedAttributes(new String[] {"missing"});
+        assertEquals("/person/12#top", append(view, "/person/12#top", model));
+    }
+
+    @Test
+    public void testRouteRedirect()
+        throws Exception {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBeanDefinition("personController",
+            LinkBuilderTest.controller(LinkBuilderTest.PersonController.class, "/person/{id}"));
+        context.refresh();
+        try {
+            LinkBuilder linkBuilder = new LinkBuilder();
+            linkBuilder.setApplicationContext(context);
+            TokenReplacementRedirectView view = new TokenReplacementRedirectView();
+            view.setLinkBuilder(linkBuilder);
+            view.setExposeModelAttributes(true);
+
+            // the values come from the model, the route's aren't appended
+            Map<String, Object> model = new LinkedHashMap<String, Object>();
+            model.put("id", Long.valueOf(12));
+            model.put("tab", "1");
+            view.setUrl("route:personController");
+            MockHttpServletResponse response = redirect(view, model, null);
+            assertEquals(HttpServletResponse.SC_SEE_OTHER, response.getStatus());
+            assertEquals("/app/person/12?tab=1", response.getHeader("Location"));
+
+            // or from a model attribute
+            Map<String, Object> person = new LinkedHashMap<String, Object>();
+            person.put("id", Long.valueOf(7));
+            model.put("person", person);
+            view.setUrl("route:personController@person");
+            assertEquals("/app/person/7?id=12&tab=1", redirect(view, model, null).getHeader("Location"));
+
+            // or from the current request's url
+            view.setUrl("route:personController");
+            view.setExposeModelAttributes(false);
+            assertEquals("/app/person/5", redirect(view, new LinkedHashMap<String, Object>(), "/person/5")
+                .getHeader("Location"));
+            assertEquals("/app/person/5", redirect(view, new LinkedHashMap<String, Object>(), "/person/5;v=2")
+                .getHeader("Location"));
+
+            // without the context path
+            view.setContextRelative(false);
+            assertEquals("/person/5", redirect(view, new LinkedHashMap<String, Object>(), "/person/5")
+                .getHeader("Location"));
+        } finally {
+            context.close();
+        }
+    }
+
+    @Test
+    public void testRouteRedirectWithoutLinkBuilder()
+        throws Exception {
+        TokenReplacementRedirectView view = new TokenReplacementRedirectView();
+        view.setUrl("route:personController");
+        try {
+            redirect(view, new LinkedHashMap<String, Object>(), null);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static MockHttpServletResponse redirect(
+        TokenReplacementRedirectView view, Map<String, Object> model, String matched)
+        throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContextPath("/app");
+        if (matched!=null) {
+            UrlPattern.compile("/person/{id}").match(matched, 0).store(request);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(model, request, response);
+        return response;
+    }
+
+    private static String append(TokenReplacementRedirectView view, String url, Map<?, ?> model) {
+        StringBuilder buff = new StringBuilder(url);
+        view.appendModelAttributes(buff, model);
+        return buff.toString();
+    }
+
+}
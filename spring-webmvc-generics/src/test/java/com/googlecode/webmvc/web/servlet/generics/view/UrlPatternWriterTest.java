@@ -0,0 +1,97 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+
+public class UrlPatternWriterTest {
+
+    @Test
+    public void testWriteBean() {
+        UrlPatternWriter writer = UrlPatternWriter.compile(
+            UrlPattern.compile("/person/{id:\\d+}/{name}/{address.city}/edit"));
+        assertEquals("/person/12/Charles%20Darwin/Shrewsbury/edit",
+            writer.write(new Person(12L, "Charles Darwin", "Shrewsbury")));
+        assertTrue(writer.containsProperty("name"));
+        assertFalse(writer.containsProperty("edit"));
+    }
+
+    @Test
+    public void testWriteMap() {
+        Map<String, Object> values = new HashMap<String, Object>();
+        values.put("path", "docs/a b/c.txt");
+        UrlPatternWriter writer = UrlPatternWriter.compile(UrlPattern.compile("/files/{path*}"));
+        assertEquals("/files/docs/a%20b/c.txt", writer.write(values));
+
+        // missing values
+        writer = UrlPatternWriter.compile(UrlPattern.compile("/person/{id}"));
+        try {
+            writer.write(values);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        StringBuilder buff = new StringBuilder();
+        writer.write(buff, values, UrlPattern.compile("/person/{id}").match("/person/a+b;v=1", 0));
+        assertEquals("/person/a%20b", buff.toString());
+
+        // but not from a match of another pattern
+        try {
+            writer.write(new StringBuilder(), values, UrlPattern.compile("/order/{id}").match("/order/1", 0));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // a tail keeps its slashes
+        values.remove("path");
+        buff = new StringBuilder();
+        UrlPatternWriter.compile(UrlPattern.compile("/files/{path*}")).write(buff, values,
+            UrlPattern.compile("/files/{path*}").match("/files/a;v=1/b%20c", 0));
+        assertEquals("/files/a/b%20c", buff.toString());
+    }
+
+    @Test
+    public void testWriteLegacy() {
+        Map<String, Object> values = new HashMap<String, Object>();
+        values.put("id", Long.valueOf(12));
+        UrlPatternWriter writer = UrlPatternWriter.compile(UrlPattern.compile("/notused/id/"));
+        assertEquals("/notused/12", writer.write(values));
+    }
+
+    public static class Person {
+        private final long id;
+        private final String name;
+        private final Address address;
+        public Person(long id, String name, String city) {
+            this.id = id;
+            this.name = name;
+            this.address = new Address(city);
+        }
+        public long getId() {
+            return id;
+        }
+        public String getName() {
+            return name;
+        }
+        public Address getAddress() {
+            return address;
+        }
+    }
+
+    public static class Address {
+        private final String city;
+        public Address(String city) {
+            this.city = city;
+        }
+        public String getCity() {
+            return city;
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.googlecode.webmvc.web.servlet.generics.view;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.googlecode.webmvc.web.servlet.generics.bind.UrlPattern;
+
+public class UrlTemplateTest {
+
+    @Test
+    public void testCompile() {
+        UrlTemplate template = UrlTemplate.compile("/person/{id}/edit.html?tab={tab}");
+        assertTrue(template.hasTokens());
+        assertEquals(2, template.getTokenNames().length);
+        assertEquals("id", template.getTokenNames()[0]);
+        assertEquals("tab", template.getTokenNames()[1]);
+
+        assertFalse(UrlTemplate.compile("/person/list.html").hasTokens());
+        assertFalse(UrlTemplate.compile("/person/{id").hasTokens());
+    }
+
+    @Test
+    public void testExpand() throws Exception {
+        Map<String, Object> model = new HashMap<String, Object>();
+        model.put("id", Long.valueOf(12));
+        model.put("name", "Charles Darwin");
+        model.put("unused", new Object());
+
+        StringBuilder buff = new StringBuilder();
+        UrlTemplate.compile("/person/{id}/{name}/{missing}/{id").expand(buff, model, null);
+        assertEquals("/person/12/Charles%20Darwin/{missing}/{id", buff.toString());
+
+        buff = new StringBuilder();
+        UrlTemplate.compile("/search/{name}?q={name}&id={id}").expand(buff, model, null);
+        assertEquals("/search/Charles%20Darwin?q=Charles+Darwin&id=12", buff.toString());
+
+        buff = new StringBuilder();
+        UrlTemplate.compile("/person/{id}/{type}").expand(buff, model,
+            UrlPattern.compile("/person/{id}/{type}").match("/person/1/a%20b", 0));
+        assertEquals("/person/12/a%20b", buff.toString());
+
+        // the match's values are decoded and lose their matrix parameters
+        model.remove("id");
+        buff = new StringBuilder();
+        UrlTemplate.compile("/person/{id}/{type}?id={id}").expand(buff, model,
+            UrlPattern.compile("/person/{id}/{type}").match("/person/1;v=2/a+b%2Fc", 0));
+        assertEquals("/person/1/a%20b%2Fc?id=1", buff.toString());
+
+        // but only if the url is the pattern that was matched
+        buff = new StringBuilder();
+        UrlTemplate.compile("/order/{id}").expand(buff, model,
+            UrlPattern.compile("/person/{id}").match("/person/1", 0));
+        assertEquals("/order/{id}", buff.toString());
+    }
+
+}